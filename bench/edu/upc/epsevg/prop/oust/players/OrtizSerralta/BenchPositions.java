@@ -0,0 +1,95 @@
+package edu.upc.epsevg.prop.oust.players.OrtizSerralta;
+
+import edu.upc.epsevg.prop.oust.GameStatus;
+import edu.upc.epsevg.prop.oust.MyStatus;
+import java.awt.Point;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Posicions fixes per als benchmarks.
+ * <p>
+ * El constructor {@code GameStatus(byte[][], PlayerType)} de la llibreria no funciona
+ * (sempre surt de rang), de manera que les posicions es construeixen reproduint una
+ * partida aleatòria amb llavor fixa des del tauler buit. Per a una mateixa mida i
+ * fase la posició és sempre la mateixa.
+ * </p>
+ * <p>
+ * Important: la llibreria no admet mides diferents dins d'una mateixa JVM. JMH fa una
+ * JVM nova per a cada combinació de paràmetres, així que no s'han d'executar els
+ * benchmarks amb {@code -f 0}.
+ * </p>
+ * @author OrtizSerralta
+ */
+final class BenchPositions {
+
+    private BenchPositions() {
+    }
+
+    /**
+     * Construeix una posició canònica.
+     * @param n Mida del costat de l'hexàgon.
+     * @param phase "opening" (n jugades), "midgame" (n*n jugades) o "late" (3*n*n jugades).
+     * @return Posició no acabada; si la partida acabaria abans, la darrera posició viva.
+     */
+    static GameStatus build(int n, String phase) {
+        int plies;
+        switch (phase) {
+            case "opening": plies = n; break;
+            case "midgame": plies = n * n; break;
+            case "late": plies = 3 * n * n; break;
+            default: throw new IllegalArgumentException("Unknown phase " + phase);
+        }
+        Random rnd = new Random(0x5EEDL + n);
+        GameStatus gs = new GameStatus(n);
+        for (int i = 0; i < plies; i++) {
+            List<Point> moves = gs.getMoves();
+            if (moves.isEmpty()) break;
+            GameStatus next = new GameStatus(gs);
+            next.placeStone(moves.get(rnd.nextInt(moves.size())));
+            if (next.isGameOver()) break;
+            gs = next;
+        }
+        return gs;
+    }
+
+    /**
+     * Construeix una posició amb moltes captures disponibles: de diverses partides
+     * aleatòries amb llavor fixa, la posició viva on el jugador que té el torn pot
+     * capturar de més maneres.
+     * @param n Mida del costat de l'hexàgon.
+     * @return Posició no acabada.
+     */
+    static GameStatus captureHeavy(int n) {
+        GameStatus best = new GameStatus(n);
+        int bestCaptures = -1;
+        for (long seed = 1; seed <= 16; seed++) {
+            Random rnd = new Random(0xC4A1L * seed + n);
+            GameStatus gs = new GameStatus(n);
+            for (int i = 0; i < 4 * n * n; i++) {
+                List<Point> moves = gs.getMoves();
+                if (moves.isEmpty()) break;
+                GameStatus next = new GameStatus(gs);
+                next.placeStone(moves.get(rnd.nextInt(moves.size())));
+                if (next.isGameOver()) break;
+                gs = next;
+                int captures = countCaptures(new MyStatus(gs));
+                if (captures > bestCaptures) {
+                    bestCaptures = captures;
+                    best = gs;
+                }
+            }
+        }
+        return best;
+    }
+
+    private static int countCaptures(MyStatus s) {
+        int[] moves = new int[s.getCellCount()];
+        int n = s.generateMoves(moves);
+        int captures = 0;
+        for (int i = 0; i < n; i++) {
+            if (s.isCapture(moves[i])) captures++;
+        }
+        return captures;
+    }
+}
@@ -0,0 +1,82 @@
+package edu.upc.epsevg.prop.oust.players.OrtizSerralta;
+
+import edu.upc.epsevg.prop.oust.GameStatus;
+import edu.upc.epsevg.prop.oust.PlayerMove;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark d'estrès de les cadenes de captura: temps d'una cerca de profunditat fixa
+ * sobre una posició amb moltes captures ({@link BenchPositions#captureHeavy(int)}).
+ * <p>
+ * {@code chainCost} és el cost d'una captura que manté el torn en fraccions de ply:
+ * 0 reprodueix les captures gratuïtes d'abans (el temps creix sense control amb la
+ * profunditat), {@link PlayerMiniMax#ONE_PLY} les cobra com un ply sencer. Comparant
+ * els temps entre profunditats es veu si el cost per profunditat queda acotat.
+ * </p>
+ * @author OrtizSerralta
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class ChainBenchmark {
+
+    @Param({"5"})
+    public int size;
+
+    @Param({"1", "2", "3"})
+    public int depth;
+
+    @Param({"0", "1", "4"})
+    public int chainCost;
+
+    @Param({"false", "true"})
+    public boolean macro;
+
+    private GameStatus position;
+    private PlayerMiniMax player;
+
+    /**
+     * Nodes explorats per cerca.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Nodes {
+        public long nodes;
+    }
+
+    @Setup
+    public void setup() {
+        position = BenchPositions.captureHeavy(size);
+        player = new PlayerMiniMax(depth, PlayerMiniMax.DEFAULT_TT_SIZE_MB);
+        player.setChainExtension(chainCost, PlayerMiniMax.DEFAULT_MAX_CHAIN);
+        player.setMacroMoves(macro);
+    }
+
+    @Setup(Level.Invocation)
+    public void clearTable() {
+        player.tt.clear();
+    }
+
+    @Benchmark
+    public PlayerMove capturePosition(Nodes counters) {
+        PlayerMove move = player.move(position);
+        counters.nodes += move.getNumerOfNodesExplored();
+        return move;
+    }
+}
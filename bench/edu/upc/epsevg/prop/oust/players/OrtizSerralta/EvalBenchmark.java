@@ -0,0 +1,80 @@
+package edu.upc.epsevg.prop.oust.players.OrtizSerralta;
+
+import edu.upc.epsevg.prop.oust.GameStatus;
+import edu.upc.epsevg.prop.oust.MyStatus;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks de les funcions d'avaluació: l'heurística del jugador (sobre
+ * {@link MyStatus}) i la de {@link GameStatusTunned}, per a cada {@link Evaluator}.
+ * <p>
+ * {@code playerHeuristic} passa per la memòria cau de l'avaluació; el cost de la
+ * funció sola és {@code evaluatorOnly}. Per comparar dos avaluadors:
+ * {@code ant bench -Dbench.args="Eval -p evaluator=standard,groups"}, i després
+ * {@code HeadlessGame standard groups} per veure què val la diferència amb el mateix temps.
+ * </p>
+ * <p>
+ * Per mesurar la memòria reservada per avaluació: {@code ant bench -Dbench.args="Eval -prof gc"}.
+ * </p>
+ * @author OrtizSerralta
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EvalBenchmark {
+
+    @Param({"5", "9"})
+    public int size;
+
+    @Param({"opening", "midgame", "late"})
+    public String phase;
+
+    /** Nom o pesos, en el format de {@link WeightedEvaluator#parse(String)}. */
+    @Param({"standard", "groups", "mobility"})
+    public String evaluator;
+
+    private Evaluator eval;
+    private PlayerMiniMax player;
+    private MyStatus status;
+    private GameStatusTunned tunned;
+
+    @Setup
+    public void setup() {
+        GameStatus position = BenchPositions.build(size, phase);
+        eval = WeightedEvaluator.parse(evaluator);
+        status = new MyStatus(position);
+        tunned = new GameStatusTunned(position, eval);
+        player = new PlayerMiniMax(1, 1);
+        player.setEvaluator(eval);
+        player.initStructures(status);
+    }
+
+    @Benchmark
+    public int evaluatorOnly() {
+        return eval.evaluate(status, status.getCurrentPlayer());
+    }
+
+    @Benchmark
+    public int playerHeuristic() {
+        return player.heuristic(status);
+    }
+
+    @Benchmark
+    public int tunnedHeuristic() {
+        return tunned.getHeuristicEvaluation();
+    }
+}
@@ -0,0 +1,67 @@
+package edu.upc.epsevg.prop.oust.players.OrtizSerralta;
+
+import edu.upc.epsevg.prop.oust.MyStatus;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark de la fase d'ordenació d'un node: generar les jugades, puntuar-les amb la
+ * TT, els killers i la història, i recórrer-ne les primeres ({@code picked}) en ordre.
+ * Amb {@code -prof gc} s'hauria de veure que no es reserva memòria.
+ * @author OrtizSerralta
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderingBenchmark {
+
+    @Param({"5", "9"})
+    public int size;
+
+    @Param({"midgame"})
+    public String phase;
+
+    /** Jugades que es demanen al node (1: poda amb la primera; 1000: totes). */
+    @Param({"1", "4", "1000"})
+    public int picked;
+
+    private MyStatus status;
+    private PlayerMiniMax player;
+    private MovePicker moves;
+    private int ttMove;
+
+    @Setup
+    public void setup() {
+        status = new MyStatus(BenchPositions.build(size, phase));
+        player = new PlayerMiniMax(1);
+        player.initStructures(status);
+        moves = new MovePicker();
+        int n = moves.generate(status);
+        // Killers i història plausibles: unes quantes jugades amb podes prèvies
+        for (int i = 0; i < n; i += 3) player.updateHistory(moves.move(i), 1 + i % 5);
+        player.storeKiller(0, moves.move(n / 2));
+        ttMove = moves.move(n - 1);
+    }
+
+    @Benchmark
+    public int generateAndOrder() {
+        int n = moves.generate(status);
+        player.orderMoves(moves, ttMove, 0);
+        int sum = 0;
+        for (int k = 0; k < Math.min(n, picked); k++) sum += moves.next(k);
+        return sum;
+    }
+}
@@ -0,0 +1,93 @@
+package edu.upc.epsevg.prop.oust.players.OrtizSerralta;
+
+import edu.upc.epsevg.prop.oust.GameStatus;
+import edu.upc.epsevg.prop.oust.PlayerMove;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark de la cerca de profunditat fixa: temps per cerca i nodes per segon
+ * (comptador auxiliar {@code nodes}).
+ * <p>
+ * La TT es buida abans de cada cerca perquè totes les invocacions facin la mateixa
+ * feina. El paràmetre {@code threads} permet comparar la cerca paral·lela i
+ * {@code macro} la cerca per torns complets amb la cerca per col·locacions;
+ * {@code quiescence} activa o desactiva la cerca de captures a l'horitzó i
+ * {@code selective} la poda per jugada nul·la i la reducció de jugades tardanes.
+ * </p>
+ * @author OrtizSerralta
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class SearchBenchmark {
+
+    @Param({"5"})
+    public int size;
+
+    @Param({"opening", "midgame"})
+    public String phase;
+
+    @Param({"3"})
+    public int depth;
+
+    @Param({"1"})
+    public int threads;
+
+    @Param({"true", "false"})
+    public boolean macro;
+
+    @Param({"true", "false"})
+    public boolean quiescence;
+
+    @Param({"true", "false"})
+    public boolean selective;
+
+    private GameStatus position;
+    private PlayerMiniMax player;
+
+    /**
+     * Nodes explorats, normalitzats per JMH a nodes per segon.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Nodes {
+        public long nodes;
+    }
+
+    @Setup
+    public void setup() {
+        position = BenchPositions.build(size, phase);
+        player = new PlayerMiniMax(depth, PlayerMiniMax.DEFAULT_TT_SIZE_MB, threads);
+        player.setMacroMoves(macro);
+        player.setQuiescence(quiescence, PlayerMiniMax.DEFAULT_QS_MAX_CAPTURES, PlayerMiniMax.DEFAULT_QS_DELTA);
+        player.setSelectiveSearch(selective, selective);
+    }
+
+    @Setup(Level.Invocation)
+    public void clearTable() {
+        player.tt.clear();
+    }
+
+    @Benchmark
+    public PlayerMove fixedDepthSearch(Nodes counters) {
+        PlayerMove move = player.move(position);
+        counters.nodes += move.getNumerOfNodesExplored();
+        return move;
+    }
+}
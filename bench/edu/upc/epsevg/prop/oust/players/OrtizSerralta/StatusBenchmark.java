@@ -0,0 +1,107 @@
+package edu.upc.epsevg.prop.oust.players.OrtizSerralta;
+
+import edu.upc.epsevg.prop.oust.GameStatus;
+import edu.upc.epsevg.prop.oust.MyStatus;
+import edu.upc.epsevg.prop.oust.PlayerType;
+import java.awt.Point;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks de la representació de l'estat: còpia i jugada amb {@link GameStatus},
+ * generació de jugades, i les mateixes operacions sobre {@link MyStatus}, on la
+ * generació i la mobilitat surten dels conjunts de jugades incrementals.
+ * @author OrtizSerralta
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StatusBenchmark {
+
+    @Param({"5", "9"})
+    public int size;
+
+    @Param({"opening", "midgame", "late"})
+    public String phase;
+
+    private GameStatus position;
+    private List<Point> moves;
+    private MyStatus status;
+    private int[] bits;
+    private int[] moveBuf;
+    private int next;
+
+    @Setup
+    public void setup() {
+        position = BenchPositions.build(size, phase);
+        moves = position.getMoves();
+        status = new MyStatus(position);
+        moveBuf = new int[status.getCellCount()];
+        bits = new int[status.generateMoves(moveBuf)];
+        System.arraycopy(moveBuf, 0, bits, 0, bits.length);
+    }
+
+    /** Còpia d'un GameStatus i una jugada (el patró de la cerca original). */
+    @Benchmark
+    public GameStatus gameStatusCopyAndPlace() {
+        GameStatus copy = new GameStatus(position);
+        copy.placeStone(moves.get(next));
+        next = (next + 1) % moves.size();
+        return copy;
+    }
+
+    @Benchmark
+    public List<Point> gameStatusGetMoves() {
+        return position.getMoves();
+    }
+
+    /** Generació sense canvis pendents: només es recorre el conjunt de jugades legals. */
+    @Benchmark
+    public int myStatusGenerateMoves() {
+        return status.generateMoves(moveBuf);
+    }
+
+    /** Jugada, generació al fill (amb la reclassificació incremental) i desfer. */
+    @Benchmark
+    public int myStatusMakeGenerateUnmake() {
+        status.makeMove(bits[next]);
+        int n = status.generateMoves(moveBuf);
+        status.unmakeMove();
+        next = (next + 1) % bits.length;
+        return n;
+    }
+
+    /** Mobilitat dels dos colors a la fulla, com la demana l'avaluació. */
+    @Benchmark
+    public int myStatusMobility() {
+        status.makeMove(bits[next]);
+        int m = status.countMoves(PlayerType.PLAYER1) - status.countMoves(PlayerType.PLAYER2);
+        status.unmakeMove();
+        next = (next + 1) % bits.length;
+        return m;
+    }
+
+    /** Fer i desfer una jugada sobre el mateix MyStatus (el patró de la cerca actual). */
+    @Benchmark
+    public long myStatusMakeUnmake() {
+        status.makeMove(bits[next]);
+        long h = status.getHash();
+        status.unmakeMove();
+        next = (next + 1) % bits.length;
+        return h;
+    }
+}
@@ -62,6 +62,15 @@ public class Board extends MouseAdapter {
         return players[PlayerType.to_01(curPlayer)];
     }
 
+    /**
+     * Atura la reflexió en segon pla dels jugadors que la fan.
+     */
+    private void stopPondering() {
+        for (IPlayer p : players) {
+            if (p instanceof IPonder) ((IPonder) p).stopPondering();
+        }
+    }
+
     private boolean isCurrentPlayerAuto() {
         return getCurrentPlayer() instanceof IAuto;
     }
@@ -198,6 +207,7 @@ public class Board extends MouseAdapter {
         boardPanel.repaint();
         curPlayer = PlayerType.PLAYER1;
         if (gameEstatus == UIStates.PLAYING_TO) { //wish to STOP
+            stopPondering();
             gameEstatus = UIStates.INIT;
             showCurrentStatus();
         } else if (gameEstatus == UIStates.INIT || gameEstatus == UIStates.END_GAME) {
@@ -230,6 +240,7 @@ public class Board extends MouseAdapter {
     private void endTurn() {
         currentClickedPath.clear();
         if (status.isGameOver()) {
+            stopPondering();
             gameEstatus = UIStates.END_GAME;
             showCurrentStatus();
         } else {
@@ -328,6 +339,7 @@ public class Board extends MouseAdapter {
         @Override
         protected void done() {
             PlayerType currentPlayer = status.getCurrentPlayer();
+            IPlayer mover = getCurrentPlayer();
             try {
                 PlayerMove m = get();
                 
@@ -344,6 +356,10 @@ public class Board extends MouseAdapter {
                         lastPostAuto = p;// posició de destí (la última del path)
                     }
                     if( !status.isGameOver() && currentPlayer == status.getCurrentPlayer()) throw new Exception("Invalid move sequence, it must end in non-capturing move.");
+                    // Si el jugador ho admet, pensa durant el torn del rival
+                    if (mover instanceof IPonder && !status.isGameOver()) {
+                        ((IPonder) mover).startPondering(new GameStatus(status));
+                    }
                                         
                     Board.this.controlPanel.setThinking(false);
                     //System.out.println(">" + status.toString());
@@ -15,6 +15,7 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import edu.upc.epsevg.prop.oust.players.OrtizSerralta.PlayerMiniMaxIDS;
+import edu.upc.epsevg.prop.oust.players.OrtizSerralta.WeightedEvaluator;
 
 /**
  *
@@ -27,13 +28,21 @@ public class HeadlessGame {
     private int gameCount;
     private int timeout;
     private int size;
+    // Moviments aturats pel timeout i latència d'aturada màxima (ms), per jugador
+    private final int[] stops = new int[2];
+    private final long[] maxStopMillis = new long[2];
     
     public static void main(String[] args) {
 
+        if (args.length >= 2) {
+            compareEvaluators(args);
+            return;
+        }
 
         //IPlayer player1 = new MalaOustiaPlayer();        
         //IPlayer player1 = new edu.upc.epsevg.prop.oust.players.OrtizSerralta.PlayerMiniMaxIDS();
-        IPlayer player1 = new PlayerMiniMaxIDS();
+        // El jugador ha de saber el temps real per moviment de cada partida
+        IPlayer player1 = idsPlayer(1);
         //IPlayer player2 = new MalaOustiaPlayer();  
         IPlayer player2 = new MOustValuablePlayer();
         
@@ -43,6 +52,7 @@ public class HeadlessGame {
         System.out.println(gr1);
         
         
+        player1 = idsPlayer(5);
         HeadlessGame game2 = new HeadlessGame(player2, player1, 5, 5/*s timeout*/, 5/*games*/);
         GameResult gr2 = game2.start();       
         System.out.println(gr2);
@@ -50,6 +60,36 @@ public class HeadlessGame {
 
         
 
+    }
+
+    /**
+     * A/B de dues funcions d'avaluació amb el mateix temps per jugada: el mateix
+     * jugador IDS, només canvia l'avaluador. Es juga amb els dos ordres de sortida.
+     * Arguments: {@code avaluadorA avaluadorB [mida] [timeout s] [partides]}, amb els
+     * avaluadors en el format de {@link WeightedEvaluator#parse(String)}.
+     */
+    private static void compareEvaluators(String[] args) {
+        int size = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        int timeout = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+        int games = args.length > 4 ? Integer.parseInt(args[4]) : 5;
+        PlayerMiniMaxIDS a = idsPlayer(timeout);
+        a.setEvaluator(WeightedEvaluator.parse(args[0]));
+        PlayerMiniMaxIDS b = idsPlayer(timeout);
+        b.setEvaluator(WeightedEvaluator.parse(args[1]));
+
+        System.out.println("A=" + args[0] + " (player 1) vs B=" + args[1]);
+        System.out.println(new HeadlessGame(a, b, size, timeout, games).start());
+        System.out.println("B=" + args[1] + " (player 1) vs A=" + args[0]);
+        System.out.println(new HeadlessGame(b, a, size, timeout, games).start());
+    }
+
+    /**
+     * Jugador IDS amb el temps per moviment de la partida: així el gestor de temps
+     * decideix quan parar i el timeout només és la darrera barrera.
+     */
+    private static PlayerMiniMaxIDS idsPlayer(int timeoutSeconds) {
+        return new PlayerMiniMaxIDS(PlayerMiniMaxIDS.DEFAULT_TT_SIZE_MB, 1, timeoutSeconds * 1000L,
+                                    PlayerMiniMaxIDS.DEFAULT_SAFETY_MARGIN_MS);
     }
 
     //=====================================================================================0
@@ -71,8 +111,19 @@ public class HeadlessGame {
         return gr;
     }
 
+    private synchronized void recordStop(int player, long millis) {
+        stops[player]++;
+        maxStopMillis[player] = Math.max(maxStopMillis[player], millis);
+    }
+
+    private synchronized String stopSummary(int player) {
+        return stops[player] == 0 ? "" : "\t stops:" + stops[player] + " (max " + maxStopMillis[player] + "ms)";
+    }
+
     private class Result {
-        public boolean ok;
+        public volatile boolean ok;
+        /** Instant (System.nanoTime) en què s'ha cridat timeout(), 0 si no s'ha cridat. */
+        public volatile long timeoutAt;
     }
 
     private PlayerType play(IPlayer player, IPlayer player0) {
@@ -89,6 +140,11 @@ public class HeadlessGame {
                 PlayerMove m = null;
                 try {
                     m = players[cp == PlayerType.PLAYER1 ? 0 : 1].move(new GameStatus(status));
+                    long timeoutAt = r.timeoutAt;
+                    if (timeoutAt != 0) {
+                        // Latència d'aturada: temps entre el timeout i el retorn del moviment
+                        recordStop(cp == PlayerType.PLAYER1 ? 0 : 1, (System.nanoTime() - timeoutAt) / 1000000);
+                    }
                 } catch(Exception ex) {
                     System.out.println("Excepció descontrolada al player:"+cp.name());
                     ex.printStackTrace();
@@ -102,6 +158,11 @@ public class HeadlessGame {
                             status.placeStone(p);
                         }
                         if( !status.isGameOver() && cp == status.getCurrentPlayer()) throw new Exception("Invalid move sequence, it must end in non-capturing move.");
+                        // Si el jugador ho admet, pensa durant el torn del rival
+                        IPlayer mover = players[cp == PlayerType.PLAYER1 ? 0 : 1];
+                        if (mover instanceof IPonder && !status.isGameOver()) {
+                            ((IPonder) mover).startPondering(new GameStatus(status));
+                        }
                     }catch(Exception ex){
                         System.out.println("Excepció descontrolada al player:"+cp.name());
                         ex.printStackTrace();
@@ -123,6 +184,7 @@ public class HeadlessGame {
                 } catch (InterruptedException ex) {
                 }
                 if (!r.ok) {
+                    r.timeoutAt = System.nanoTime();
                     players[cp == PlayerType.PLAYER1 ? 0 : 1].timeout();
                 }
             });
@@ -146,6 +208,9 @@ public class HeadlessGame {
             gc();
             
         }
+        for (IPlayer p : players) {
+            if (p instanceof IPonder) ((IPonder) p).stopPondering();
+        }
         System.out.println("|||| WINNER:"+ (status.GetWinner()==PlayerType.PLAYER1?"1":"2"));
         return status.GetWinner();
     }
@@ -184,8 +249,8 @@ public class HeadlessGame {
                 }
             }
 
-            res += "PLAYER 1 (" + pad(players[0].getName(), 40) + "):\t wins " + wins1 + "\t ties:" + ties1 + "\t looses:" + loose1 + "\n";
-            res += "PLAYER 2 (" + pad(players[1].getName(), 40) + "):\t wins " + loose1 + "\t ties:" + ties1 + "\t looses:" + wins1 + "\n";
+            res += "PLAYER 1 (" + pad(players[0].getName(), 40) + "):\t wins " + wins1 + "\t ties:" + ties1 + "\t looses:" + loose1 + stopSummary(0) + "\n";
+            res += "PLAYER 2 (" + pad(players[1].getName(), 40) + "):\t wins " + loose1 + "\t ties:" + ties1 + "\t looses:" + wins1 + stopSummary(1) + "\n";
             return res;
         }
 
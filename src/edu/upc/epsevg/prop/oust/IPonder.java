@@ -0,0 +1,26 @@
+package edu.upc.epsevg.prop.oust;
+
+/**
+ * Interfície opcional per als jugadors que poden pensar durant el torn del rival.
+ * <p>
+ * No forma part del contracte de {@link IPlayer}/{@link IAuto}: el joc només la fa
+ * servir si el jugador la implementa. Després d'aplicar el moviment d'un jugador,
+ * el joc crida {@link #startPondering(GameStatus)} amb la posició resultant; la
+ * reflexió s'acaba sola quan arriba la crida a {@code move()} següent, o amb
+ * {@link #stopPondering()} quan s'acaba la partida.
+ * </p>
+ * @author OrtizSerralta
+ */
+public interface IPonder {
+
+    /**
+     * Comença a pensar en segon pla mentre juga el rival.
+     * @param gs Posició després del moviment del jugador (li toca al rival). No es modifica.
+     */
+    void startPondering(GameStatus gs);
+
+    /**
+     * Atura la reflexió en segon pla (si n'hi ha) i n'espera el final.
+     */
+    void stopPondering();
+}
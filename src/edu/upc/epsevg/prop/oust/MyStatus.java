@@ -1,13 +1,1115 @@
-/*
- * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
- * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
- */
 package edu.upc.epsevg.prop.oust;
 
+import edu.upc.epsevg.prop.oust.players.OrtizSerralta.EvalKernel;
+import edu.upc.epsevg.prop.oust.players.OrtizSerralta.Zobrist;
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 /**
- *
- * @author Usuari
+ * Representació compacta de l'estat d'Oust basada en bitboards.
+ * <p>
+ * Cada color es guarda com un vector de paraules {@code long}. La casella (x, y)
+ * correspon al bit {@code x * W + y}, amb {@code W = squareSize + 1}: la columna
+ * extra fa de guarda, de manera que els sis veïns hexagonals s'obtenen amb
+ * desplaçaments fixos ({@code ±1}, {@code ±W}, {@code ±(W+1)}) i una màscara de
+ * caselles vàlides, sense comprovar límits casella a casella.
+ * </p>
+ * <p>
+ * Les regles són les mateixes que les de {@link GameStatus}: una fitxa sense veïns
+ * propis és una col·locació normal i passa el torn; una fitxa que toca fitxes pròpies
+ * només és legal si el grup resultant toca algun grup rival i tots els grups rivals
+ * adjacents són més petits, cas en què es capturen i el jugador torna a moure.
+ * </p>
+ * <p>
+ * Les jugades es poden desfer ({@link #makeMove(int)} / {@link #unmakeMove()}): cada
+ * jugada guarda la clau anterior, el torn i les fitxes capturades en vectors
+ * preassignats, de manera que una cerca pot baixar i tornar enrere sobre un únic
+ * objecte sense reservar memòria per node.
+ * </p>
+ * <p>
+ * També es mantenen de manera incremental els grups que fa servir la funció
+ * d'avaluació del jugador (vegeu {@link #getGroupSquareSum(PlayerType)}), amb una
+ * estructura union-find que es desfà juntament amb la jugada.
+ * </p>
+ * <p>
+ * Les jugades legals de tots dos colors també es mantenen incrementalment. Cada
+ * casella buida és, per a cada color, neutra (cap veí propi: sempre legal), de
+ * captura o il·legal. Les neutres surten directament dels bitboards; les de captura es
+ * guarden en un conjunt per color. Cada jugada només anota les caselles que han
+ * canviat, i el conjunt es reclassifica al voltant dels grups afectats la primera
+ * vegada que es consulta (vegeu {@link #generateMoves(int[])}).
+ * </p>
+ * <p>
+ * La conversió des de {@link GameStatus} és directa. La conversió inversa
+ * ({@link #toGameStatus()}) reprodueix les jugades fetes des de l'estat d'origen,
+ * perquè la llibreria no permet construir un estat arbitrari de manera fiable.
+ * </p>
+ * @author OrtizSerralta
  */
 public class MyStatus {
-    
+
+    private static final int P1 = 0;
+    private static final int P2 = 1;
+
+    private final Geometry geo;
+    private final long[][] stones;   // [color][paraula]
+    private final int[] count;       // Fitxes de cada color
+    private int side;                // Color que té el torn
+    private boolean gameOver;
+    private PlayerType winner;
+    private long hash;
+
+    // Historial de jugades: permet desfer-les i reconstruir el GameStatus equivalent
+    private final GameStatus origin;
+    private int[] history;           // Casella de cada jugada
+    private long[] undoHash;         // Clau abans de la jugada
+    private int[] undoFlags;         // Torn anterior, fi de partida anterior i si ha capturat
+    private PlayerType[] undoWinner; // Guanyador abans de la jugada
+    private long[][] undoCaptured;   // Fitxes capturades (files reutilitzades)
+    private int historyLen;
+    private int undoBase;            // Jugades anteriors a una còpia: no es poden desfer
+
+    // Grups de l'avaluació: union-find sobre la finestra n x n amb registre per desfer
+    private final int[] ufParent;
+    private final int[] ufSize;
+    private final int[] groupSq;     // Suma dels quadrats de les mides dels grups de cada color
+    private final int[] groupStones; // Fitxes de cada color dins de la finestra
+    private int[] ufLog;             // Triplets (cel·la, pare anterior, mida anterior)
+    private int ufLogLen;
+    private int[] undoUfLen;         // Longitud del registre abans de cada jugada
+    private int[] undoGroups;        // groupSq i groupStones abans de cada jugada (4 per jugada)
+    private int[] ufMark, ufList;
+    private int ufStamp;
+
+    // Jugades legals i jugades de captura de cada color, i caselles canviades des de
+    // l'última reclassificació, amb còpia per desfer (5 * words per jugada)
+    private final long[][] legal;          // [color][paraula]
+    private final long[][] captureMoves;   // [color][paraula]
+    private final long[] pending;
+    private long[] undoMoves;
+
+    private static final int UNDO_SIDE = 1;
+    private static final int UNDO_GAMEOVER = 2;
+    private static final int UNDO_CAPTURE = 4;
+
+    // Buffers de treball (es creen la primera vegada que es necessiten)
+    private long[] tmpA, tmpB, tmpC, tmpD, tmpE;
+    private int[] seen;
+
+    // Etiquetatge local de grups per reclassificar caselles (vàlid mentre lblEpoch no canvia)
+    private int[] label, lblStamp, members, groupStart, groupSize, maxAdjEnemy;
+    private int lblEpoch, lblIds, lblLen;
+
+    /**
+     * Crea un estat inicial buit.
+     * @param n Mida del costat de l'hexàgon.
+     */
+    public MyStatus(int n) {
+        this.geo = Geometry.forSize(n);
+        this.stones = new long[2][geo.words];
+        this.count = new int[2];
+        this.side = P1;
+        this.origin = null;
+        this.hash = 0;
+        this.ufParent = new int[geo.evalCells];
+        this.ufSize = new int[geo.evalCells];
+        this.groupSq = new int[2];
+        this.groupStones = new int[2];
+        this.legal = new long[2][geo.words];
+        this.captureMoves = new long[2][geo.words];
+        this.pending = new long[geo.words];
+        allocHistory(64);
+        buildGroups();
+        buildMoveSets();
+    }
+
+    /**
+     * Converteix un {@link GameStatus} a la representació de bitboards.
+     * @param gs Estat original (no es modifica).
+     */
+    public MyStatus(GameStatus gs) {
+        this.geo = Geometry.forSize(gs.getSize());
+        this.stones = new long[2][geo.words];
+        this.count = new int[2];
+        for (int i = 0; i < geo.numCells; i++) {
+            int bit = geo.cellBits[i];
+            PlayerType p = gs.getColor(bit / geo.width, bit % geo.width);
+            if (p != null) {
+                int c = colorIndex(p);
+                stones[c][bit >>> 6] |= 1L << bit;
+                count[c]++;
+                hash ^= geo.keys[c][bit];
+            }
+        }
+        this.side = colorIndex(gs.getCurrentPlayer());
+        if (side == P2) hash ^= geo.sideKey;
+        this.gameOver = gs.isGameOver();
+        this.winner = gs.GetWinner();
+        this.origin = new GameStatus(gs);
+        this.ufParent = new int[geo.evalCells];
+        this.ufSize = new int[geo.evalCells];
+        this.groupSq = new int[2];
+        this.groupStones = new int[2];
+        this.legal = new long[2][geo.words];
+        this.captureMoves = new long[2][geo.words];
+        this.pending = new long[geo.words];
+        allocHistory(64);
+        buildGroups();
+        buildMoveSets();
+    }
+
+    /**
+     * Constructor de còpia.
+     * @param other Estat a copiar.
+     */
+    public MyStatus(MyStatus other) {
+        this.geo = other.geo;
+        this.stones = new long[][]{other.stones[P1].clone(), other.stones[P2].clone()};
+        this.count = other.count.clone();
+        this.side = other.side;
+        this.gameOver = other.gameOver;
+        this.winner = other.winner;
+        this.hash = other.hash;
+        this.origin = other.origin;
+        this.ufParent = other.ufParent.clone();
+        this.ufSize = other.ufSize.clone();
+        this.groupSq = other.groupSq.clone();
+        this.groupStones = other.groupStones.clone();
+        this.legal = new long[][]{other.legal[P1].clone(), other.legal[P2].clone()};
+        this.captureMoves = new long[][]{other.captureMoves[P1].clone(), other.captureMoves[P2].clone()};
+        this.pending = other.pending.clone();
+        allocHistory(Math.max(64, other.historyLen + 64));
+        System.arraycopy(other.history, 0, history, 0, other.historyLen);
+        System.arraycopy(other.undoFlags, 0, undoFlags, 0, other.historyLen);
+        this.historyLen = other.historyLen;
+        this.undoBase = other.historyLen;
+    }
+
+    /**
+     * Reconstrueix el {@link GameStatus} equivalent a aquest estat.
+     * @return Un GameStatus nou amb les mateixes fitxes i el mateix torn.
+     */
+    public GameStatus toGameStatus() {
+        GameStatus gs = (origin != null) ? new GameStatus(origin) : new GameStatus(geo.n);
+        for (int i = 0; i < historyLen; i++) gs.placeStone(toPoint(history[i]));
+        return gs;
+    }
+
+    // --- API equivalent a GameStatus ---
+
+    public int getSize() { return geo.n; }
+
+    public int getSquareSize() { return geo.squareSize; }
+
+    public PlayerType getCurrentPlayer() { return side == P1 ? PlayerType.PLAYER1 : PlayerType.PLAYER2; }
+
+    public boolean isGameOver() { return gameOver; }
+
+    public PlayerType GetWinner() { return winner; }
+
+    /**
+     * @return Clau Zobrist de l'estat (compatible amb {@link Zobrist#compute(GameStatus)}).
+     */
+    public long getHash() { return hash; }
+
+    /**
+     * @param p Color del jugador.
+     * @return Nombre de fitxes d'aquest color al tauler.
+     */
+    public int getStoneCount(PlayerType p) { return count[colorIndex(p)]; }
+
+    /**
+     * Suma dels quadrats de les mides dels grups d'un color, tal com els compta la
+     * funció d'avaluació del jugador: només es consideren les caselles amb
+     * {@code x < n} i {@code y < n}, i la connectivitat usa les direccions
+     * {@link EvalKernel#DIRS}. Es manté incrementalment, O(1).
+     * @param p Color del jugador.
+     * @return Suma de {@code mida^2} de tots els grups del color.
+     */
+    public int getGroupSquareSum(PlayerType p) { return groupSq[colorIndex(p)]; }
+
+    /**
+     * @param p Color del jugador.
+     * @return Fitxes del color dins de la finestra de {@link #getGroupSquareSum(PlayerType)}.
+     */
+    public int getGroupStoneCount(PlayerType p) { return groupStones[colorIndex(p)]; }
+
+    public PlayerType getColor(int x, int y) {
+        if (x < 0 || x >= geo.squareSize) throw new RuntimeException("Invalid row");
+        if (y < 0 || y >= geo.squareSize) throw new RuntimeException("Invalid column");
+        int bit = x * geo.width + y;
+        if (test(stones[P1], bit)) return PlayerType.PLAYER1;
+        if (test(stones[P2], bit)) return PlayerType.PLAYER2;
+        return null;
+    }
+
+    public List<Point> getMoves() {
+        int[] buf = new int[geo.numCells];
+        int n = generateMoves(buf);
+        List<Point> moves = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) moves.add(toPoint(buf[i]));
+        return moves;
+    }
+
+    public void placeStone(Point p) {
+        if (p.x < 0 || p.y < 0 || p.x >= geo.squareSize || p.y >= geo.squareSize) {
+            throw new RuntimeException("Invalid position " + p);
+        }
+        makeMove(p.x * geo.width + p.y);
+    }
+
+    // --- API primitiva (caselles com a índex de bit) ---
+
+    /**
+     * @param p Casella del tauler.
+     * @return Índex de bit de la casella.
+     */
+    public int toBit(Point p) { return p.x * geo.width + p.y; }
+
+    /**
+     * @param bit Índex de bit d'una casella.
+     * @return Casella com a Point (x, y).
+     */
+    public Point toPoint(int bit) { return new Point(bit / geo.width, bit % geo.width); }
+
+    /**
+     * @return Nombre màxim de jugades possibles (caselles vàlides del tauler).
+     */
+    public int getCellCount() { return geo.numCells; }
+
+    /**
+     * Genera les jugades legals del jugador actual, en el mateix ordre que
+     * {@link GameStatus#getMoves()}.
+     * <p>
+     * No es recorre el tauler: les jugades són les caselles neutres (buides i sense
+     * cap veí propi, una operació de bitboards) més el conjunt de captures legals del
+     * color, que {@link #makeMove(int)} manté al dia.
+     * </p>
+     * @param out Vector on s'escriuen els índexs de bit (mida mínima {@link #getCellCount()}).
+     * @return Nombre de jugades generades.
+     */
+    public int generateMoves(int[] out) {
+        if (gameOver) return 0;
+        long[] legal = legalMoves(side);
+        int n = 0;
+        for (int b = nextBit(legal, 0); b >= 0; b = nextBit(legal, b + 1)) out[n++] = b;
+        return n;
+    }
+
+    /**
+     * Genera només les jugades de captura del jugador actual (en ordre de casella).
+     * @param out Vector on s'escriuen els índexs de bit (mida mínima {@link #getCellCount()}).
+     * @return Nombre de captures generades.
+     */
+    public int generateCaptures(int[] out) {
+        if (gameOver) return 0;
+        ensureScratch();
+        syncMoves();
+        long[] caps = captureMoves[side];
+        int n = 0;
+        for (int b = nextBit(caps, 0); b >= 0; b = nextBit(caps, b + 1)) out[n++] = b;
+        return n;
+    }
+
+    /**
+     * @return Nombre de jugades legals del jugador actual.
+     */
+    public int countMoves() {
+        return gameOver ? 0 : popCount(legalMoves(side));
+    }
+
+    /**
+     * Mobilitat d'un color, tingui o no el torn: nombre de caselles on podria col·locar.
+     * @param p Color del jugador.
+     * @return Nombre de jugades legals del color (0 si la partida s'ha acabat).
+     */
+    public int countMoves(PlayerType p) {
+        return gameOver ? 0 : popCount(legalMoves(colorIndex(p)));
+    }
+
+    /**
+     * Col·loca una fitxa del jugador actual aplicant captures i canvi de torn.
+     * La jugada queda registrada i es pot desfer amb {@link #unmakeMove()}.
+     * Si la jugada no és legal es llança l'excepció sense modificar l'estat.
+     * @param bit Índex de bit de la casella.
+     * @throws RuntimeException si la jugada no és legal.
+     */
+    public void makeMove(int bit) {
+        if (bit < 0 || bit >= geo.bits || !test(geo.valid, bit)) {
+            throw new RuntimeException("Invalid position " + toPoint(bit));
+        }
+        long[] own = stones[side];
+        long[] opp = stones[side ^ 1];
+        if (test(own, bit) || test(opp, bit)) {
+            throw new RuntimeException("No es pot omplir una casella que ja està plena.");
+        }
+        if (historyLen == history.length) allocHistory(historyLen * 2);
+        int ply = historyLen;
+        undoHash[ply] = hash;
+        undoWinner[ply] = winner;
+        undoUfLen[ply] = ufLogLen;
+        undoGroups[4 * ply] = groupSq[P1];
+        undoGroups[4 * ply + 1] = groupSq[P2];
+        undoGroups[4 * ply + 2] = groupStones[P1];
+        undoGroups[4 * ply + 3] = groupStones[P2];
+        int flags = side | (gameOver ? UNDO_GAMEOVER : 0);
+
+        boolean capture = false;
+        long[] captured = null;
+        if (hasNeighbour(own, bit)) {
+            ensureScratch();
+            // Grup propi resultant: inundació dins de (propis + casella nova)
+            long[] within = tmpA, group = tmpB, adj = tmpC, enemy = tmpD;
+            for (int i = 0; i < geo.words; i++) within[i] = own[i];
+            within[bit >>> 6] |= 1L << bit;
+            clear(group);
+            group[bit >>> 6] |= 1L << bit;
+            flood(group, within);
+            int size = popCount(group);
+
+            // Grups rivals en contacte amb el grup propi
+            expand(group, adj);
+            boolean any = false;
+            for (int i = 0; i < geo.words; i++) {
+                adj[i] &= opp[i];
+                any |= adj[i] != 0;
+            }
+            if (!any) throw new RuntimeException("Invalid move " + toPoint(bit));
+
+            // Les fitxes capturades s'acumulen directament a la fila de desfer
+            captured = undoCaptured[ply];
+            if (captured == null) {
+                captured = new long[geo.words];
+                undoCaptured[ply] = captured;
+            }
+            clear(captured);
+            int maxE = 0;
+            for (int e = nextBit(adj, 0); e >= 0; e = nextBit(adj, e + 1)) {
+                clear(enemy);
+                enemy[e >>> 6] |= 1L << e;
+                flood(enemy, opp);
+                int es = popCount(enemy);
+                if (es > maxE) maxE = es;
+                for (int i = 0; i < geo.words; i++) {
+                    captured[i] |= enemy[i];
+                    adj[i] &= ~enemy[i];
+                }
+            }
+            if (maxE >= size) throw new RuntimeException("Invalid move " + toPoint(bit));
+
+            int oc = side ^ 1;
+            for (int c = nextBit(captured, 0); c >= 0; c = nextBit(captured, c + 1)) {
+                hash ^= geo.keys[oc][c];
+            }
+            for (int i = 0; i < geo.words; i++) opp[i] &= ~captured[i];
+            count[oc] -= popCount(captured);
+            removeFromGroups(captured, oc);
+            capture = true;
+            flags |= UNDO_CAPTURE;
+        }
+
+        own[bit >>> 6] |= 1L << bit;
+        count[side]++;
+        hash ^= geo.keys[side][bit];
+        if (geo.evalCell[bit] >= 0) addToGroups(geo.evalCell[bit], side);
+        int w = geo.words;
+        int u = 5 * w * ply;
+        System.arraycopy(legal[P1], 0, undoMoves, u, w);
+        System.arraycopy(legal[P2], 0, undoMoves, u + w, w);
+        System.arraycopy(captureMoves[P1], 0, undoMoves, u + 2 * w, w);
+        System.arraycopy(captureMoves[P2], 0, undoMoves, u + 3 * w, w);
+        System.arraycopy(pending, 0, undoMoves, u + 4 * w, w);
+        pending[bit >>> 6] |= 1L << bit;
+        if (capture) {
+            for (int i = 0; i < w; i++) pending[i] |= captured[i];
+        }
+        history[ply] = bit;
+        undoFlags[ply] = flags;
+        historyLen++;
+
+        if (capture) {
+            if (count[side ^ 1] == 0) {
+                gameOver = true;
+                winner = getCurrentPlayer();
+            }
+        } else {
+            switchSide();
+            // Si el rival no pot moure, el torn torna al jugador que ha mogut
+            if (!hasAnyMove()) switchSide();
+        }
+    }
+
+    /**
+     * Desfà l'última jugada feta amb {@link #makeMove(int)}.
+     * @throws RuntimeException si no hi ha cap jugada per desfer.
+     */
+    public void unmakeMove() {
+        if (historyLen == undoBase) throw new RuntimeException("No hi ha cap jugada per desfer.");
+        int ply = --historyLen;
+        int bit = history[ply];
+        int flags = undoFlags[ply];
+        int mover = flags & UNDO_SIDE;
+
+        stones[mover][bit >>> 6] &= ~(1L << bit);
+        count[mover]--;
+        if ((flags & UNDO_CAPTURE) != 0) {
+            long[] captured = undoCaptured[ply];
+            long[] opp = stones[mover ^ 1];
+            for (int i = 0; i < geo.words; i++) opp[i] |= captured[i];
+            count[mover ^ 1] += popCount(captured);
+        }
+        side = mover;
+        gameOver = (flags & UNDO_GAMEOVER) != 0;
+        winner = undoWinner[ply];
+        hash = undoHash[ply];
+
+        for (int k = undoUfLen[ply], i = ufLogLen - 3; i >= k; i -= 3) {
+            ufParent[ufLog[i]] = ufLog[i + 1];
+            ufSize[ufLog[i]] = ufLog[i + 2];
+        }
+        ufLogLen = undoUfLen[ply];
+        groupSq[P1] = undoGroups[4 * ply];
+        groupSq[P2] = undoGroups[4 * ply + 1];
+        groupStones[P1] = undoGroups[4 * ply + 2];
+        groupStones[P2] = undoGroups[4 * ply + 3];
+        int w = geo.words;
+        int u = 5 * w * ply;
+        System.arraycopy(undoMoves, u, legal[P1], 0, w);
+        System.arraycopy(undoMoves, u + w, legal[P2], 0, w);
+        System.arraycopy(undoMoves, u + 2 * w, captureMoves[P1], 0, w);
+        System.arraycopy(undoMoves, u + 3 * w, captureMoves[P2], 0, w);
+        System.arraycopy(undoMoves, u + 4 * w, pending, 0, w);
+    }
+
+    /**
+     * @return Nombre de jugades fetes sobre aquest objecte que encara es poden desfer.
+     */
+    public int getUndoDepth() {
+        return historyLen - undoBase;
+    }
+
+    /**
+     * Passa el torn al rival sense col·locar cap fitxa. No és una jugada d'Oust: només
+     * serveix per a la poda per jugada nul·la de la cerca. No queda a l'historial i
+     * s'ha de desfer amb {@link #unmakeNullMove()} abans de desfer cap altra jugada.
+     */
+    public void makeNullMove() {
+        switchSide();
+    }
+
+    /**
+     * Desfà {@link #makeNullMove()}.
+     */
+    public void unmakeNullMove() {
+        switchSide();
+    }
+
+    /**
+     * Indica si una jugada legal és de captura. Una fitxa que toca fitxes pròpies
+     * només és legal si captura, de manera que n'hi ha prou de mirar els veïns.
+     * @param bit Índex de bit d'una jugada legal del jugador actual.
+     * @return Cert si la jugada captura (i el jugador conserva el torn).
+     */
+    public boolean isCapture(int bit) {
+        return hasNeighbour(stones[side], bit);
+    }
+
+    /**
+     * Captures encadenades del torn en curs: jugades de captura consecutives del
+     * jugador que té el torn al final de l'historial (també les anteriors a una còpia).
+     * @return Nombre de captures fetes en aquest torn.
+     */
+    public int getTurnCaptures() {
+        int c = 0;
+        for (int i = historyLen - 1; i >= 0; i--) {
+            int flags = undoFlags[i];
+            if ((flags & UNDO_CAPTURE) == 0 || (flags & UNDO_SIDE) != side) break;
+            c++;
+        }
+        return c;
+    }
+
+    /**
+     * @return Cert si el jugador actual té alguna jugada legal.
+     */
+    public boolean hasAnyMove() {
+        if (gameOver) return false;
+        long[] own = stones[side];
+        long[] opp = stones[side ^ 1];
+        ensureScratch();
+        expand(own, tmpA);
+        for (int i = 0; i < geo.words; i++) {
+            // Caselles buides sense cap veí propi: sempre legals
+            if ((geo.valid[i] & ~own[i] & ~opp[i] & ~tmpA[i]) != 0) return true;
+        }
+        long[] legal = legalMoves(side);
+        for (int i = 0; i < geo.words; i++) {
+            if (legal[i] != 0) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int x = 0; x < geo.squareSize; x++) {
+            for (int y = 0; y < geo.squareSize; y++) {
+                int bit = x * geo.width + y;
+                if (!test(geo.valid, bit)) sb.append(' ');
+                else if (test(stones[P1], bit)) sb.append('X');
+                else if (test(stones[P2], bit)) sb.append('O');
+                else sb.append('.');
+            }
+            sb.append('\n');
+        }
+        sb.append("Torn: ").append(getCurrentPlayer());
+        return sb.toString();
+    }
+
+    // --- Mètodes auxiliars ---
+
+    private void switchSide() {
+        side ^= 1;
+        hash ^= geo.sideKey;
+    }
+
+    private void allocHistory(int capacity) {
+        if (history == null) {
+            history = new int[capacity];
+            undoHash = new long[capacity];
+            undoFlags = new int[capacity];
+            undoWinner = new PlayerType[capacity];
+            undoCaptured = new long[capacity][];
+            undoUfLen = new int[capacity];
+            undoGroups = new int[4 * capacity];
+            undoMoves = new long[5 * geo.words * capacity];
+        } else {
+            history = Arrays.copyOf(history, capacity);
+            undoHash = Arrays.copyOf(undoHash, capacity);
+            undoFlags = Arrays.copyOf(undoFlags, capacity);
+            undoWinner = Arrays.copyOf(undoWinner, capacity);
+            undoCaptured = Arrays.copyOf(undoCaptured, capacity);
+            undoUfLen = Arrays.copyOf(undoUfLen, capacity);
+            undoGroups = Arrays.copyOf(undoGroups, 4 * capacity);
+            undoMoves = Arrays.copyOf(undoMoves, 5 * geo.words * capacity);
+        }
+    }
+
+    // --- Grups de l'avaluació (union-find amb registre per desfer) ---
+
+    /**
+     * Construeix els grups de l'avaluació des de zero a partir del tauler.
+     */
+    private void buildGroups() {
+        for (int c = P1; c <= P2; c++) {
+            long[] set = stones[c];
+            for (int w = 0; w < geo.evalCells; w++) {
+                if (!test(set, geo.evalBit[w])) continue;
+                ufParent[w] = w;
+                ufSize[w] = 1;
+                groupSq[c]++;
+                groupStones[c]++;
+            }
+            for (int w = 0; w < geo.evalCells; w++) {
+                if (!test(set, geo.evalBit[w])) continue;
+                for (int nw : geo.evalNbrs[w]) {
+                    if (test(set, geo.evalBit[nw])) union(w, nw, c);
+                }
+            }
+        }
+        ufLogLen = 0;
+    }
+
+    /**
+     * Afegeix una fitxa de la finestra i l'uneix amb els veïns del mateix color.
+     */
+    private void addToGroups(int w, int c) {
+        logCell(w);
+        ufParent[w] = w;
+        ufSize[w] = 1;
+        groupSq[c] += 1;
+        groupStones[c]++;
+        long[] set = stones[c];
+        for (int nw : geo.evalNbrs[w]) {
+            if (test(set, geo.evalBit[nw])) union(w, nw, c);
+        }
+    }
+
+    /**
+     * Treu de l'estructura les fitxes capturades (ja esborrades del tauler). Els grups
+     * afectats es poden partir, de manera que es reconstrueixen a partir de les fitxes
+     * que en queden.
+     */
+    private void removeFromGroups(long[] captured, int c) {
+        if (ufMark == null) {
+            ufMark = new int[geo.evalCells];
+            ufList = new int[geo.evalCells];
+        }
+        int stamp = ++ufStamp;
+        boolean any = false;
+        for (int b = nextBit(captured, 0); b >= 0; b = nextBit(captured, b + 1)) {
+            int w = geo.evalCell[b];
+            if (w < 0) continue;
+            int r = find(w);
+            if (ufMark[r] != stamp) {
+                ufMark[r] = stamp;
+                groupSq[c] -= ufSize[r] * ufSize[r];
+            }
+            groupStones[c]--;
+            any = true;
+        }
+        if (!any) return;
+
+        long[] set = stones[c];
+        int len = 0;
+        for (int w = 0; w < geo.evalCells; w++) {
+            if (test(set, geo.evalBit[w]) && ufMark[find(w)] == stamp) ufList[len++] = w;
+        }
+        for (int i = 0; i < len; i++) {
+            int w = ufList[i];
+            logCell(w);
+            ufParent[w] = w;
+            ufSize[w] = 1;
+        }
+        groupSq[c] += len;
+        for (int i = 0; i < len; i++) {
+            int w = ufList[i];
+            for (int nw : geo.evalNbrs[w]) {
+                if (test(set, geo.evalBit[nw])) union(w, nw, c);
+            }
+        }
+    }
+
+    private int find(int w) {
+        while (ufParent[w] != w) w = ufParent[w];
+        return w;
+    }
+
+    /**
+     * Unió per mida (sense compressió de camins, perquè es pugui desfer).
+     */
+    private void union(int a, int b, int c) {
+        int ra = find(a), rb = find(b);
+        if (ra == rb) return;
+        if (ufSize[ra] < ufSize[rb]) {
+            int t = ra;
+            ra = rb;
+            rb = t;
+        }
+        int sa = ufSize[ra], sb = ufSize[rb];
+        logCell(rb);
+        ufParent[rb] = ra;
+        logCell(ra);
+        ufSize[ra] = sa + sb;
+        groupSq[c] += 2 * sa * sb; // (sa + sb)^2 - sa^2 - sb^2
+    }
+
+    private void logCell(int w) {
+        if (ufLog == null) {
+            ufLog = new int[3 * 64];
+        } else if (ufLogLen + 3 > ufLog.length) {
+            ufLog = Arrays.copyOf(ufLog, ufLog.length * 2);
+        }
+        ufLog[ufLogLen++] = w;
+        ufLog[ufLogLen++] = ufParent[w];
+        ufLog[ufLogLen++] = ufSize[w];
+    }
+
+    private void ensureScratch() {
+        if (tmpA == null) {
+            tmpA = new long[geo.words];
+            tmpB = new long[geo.words];
+            tmpC = new long[geo.words];
+            tmpD = new long[geo.words];
+            tmpE = new long[geo.words];
+            seen = new int[6];
+            label = new int[geo.bits];
+            lblStamp = new int[geo.bits];
+            members = new int[geo.numCells];
+            groupStart = new int[geo.numCells + 1];
+            groupSize = new int[geo.numCells + 1];
+            maxAdjEnemy = new int[geo.numCells + 1];
+        }
+    }
+
+    private boolean hasNeighbour(long[] set, int bit) {
+        for (int nb : geo.nbrs[bit]) if (test(set, nb)) return true;
+        return false;
+    }
+
+    // --- Conjunts de jugades legals ---
+
+    /**
+     * Jugades legals d'un color: caselles neutres més les captures legals.
+     * @return Bitboard del color (no s'ha de modificar).
+     */
+    private long[] legalMoves(int c) {
+        ensureScratch();
+        syncMoves();
+        return legal[c];
+    }
+
+    /**
+     * Recalcula les jugades legals dels dos colors a partir de les captures.
+     */
+    private void updateLegal() {
+        for (int c = P1; c <= P2; c++) {
+            long[] own = stones[c];
+            long[] opp = stones[c ^ 1];
+            long[] caps = captureMoves[c];
+            long[] set = legal[c];
+            expand(own, set);
+            for (int i = 0; i < geo.words; i++) {
+                set[i] = (geo.valid[i] & ~own[i] & ~opp[i] & ~set[i]) | caps[i];
+            }
+        }
+    }
+
+    /**
+     * Classifica des de zero les caselles buides que toquen alguna fitxa.
+     */
+    private void buildMoveSets() {
+        ensureScratch();
+        long[] occupied = tmpA, dirty = tmpC;
+        for (int i = 0; i < geo.words; i++) occupied[i] = stones[P1][i] | stones[P2][i];
+        expand(occupied, dirty);
+        for (int i = 0; i < geo.words; i++) dirty[i] &= ~occupied[i];
+        newLabels();
+        refreshMoves(dirty, P1);
+        refreshMoves(dirty, P2);
+        updateLegal();
+        clear(pending);
+    }
+
+    /**
+     * Posa al dia els conjunts de jugades amb les caselles canviades des de l'última
+     * consulta (col·locades o capturades). Per a un color, una casella només pot canviar
+     * de classe si ha quedat buida, si toca un grup que conté alguna d'aquestes caselles
+     * o si toca un grup propi en contacte amb aquest: la legalitat depèn dels grups
+     * veïns i dels rivals que toquen els grups propis.
+     */
+    private void syncMoves() {
+        boolean any = false;
+        for (int i = 0; i < geo.words; i++) any |= pending[i] != 0;
+        if (!any) return;
+        long[] p1 = stones[P1], p2 = stones[P2];
+        long[] region = tmpB, touch = tmpC, part = tmpD, dirty = tmpA;
+
+        // Grups que contenen caselles canviades, i les que han quedat buides
+        for (int i = 0; i < geo.words; i++) part[i] = pending[i] & p1[i];
+        flood(part, p1);
+        for (int i = 0; i < geo.words; i++) region[i] = pending[i] | part[i];
+        for (int i = 0; i < geo.words; i++) part[i] = pending[i] & p2[i];
+        flood(part, p2);
+        for (int i = 0; i < geo.words; i++) region[i] |= part[i];
+        expand(region, touch);
+
+        newLabels();
+        for (int c = P1; c <= P2; c++) {
+            long[] own = stones[c];
+            // Grups propis en contacte amb la zona canviada
+            for (int i = 0; i < geo.words; i++) part[i] = touch[i] & own[i] & ~region[i];
+            flood(part, own);
+            for (int i = 0; i < geo.words; i++) part[i] |= region[i];
+            expand(part, dirty);
+            for (int i = 0; i < geo.words; i++) {
+                long occupied = p1[i] | p2[i];
+                dirty[i] = (dirty[i] | region[i]) & ~occupied;
+                captureMoves[c][i] &= ~occupied;
+            }
+            refreshMoves(dirty, c);
+        }
+        updateLegal();
+        clear(pending);
+    }
+
+    /**
+     * Invalida les etiquetes de grup de la reclassificació anterior.
+     */
+    private void newLabels() {
+        if (++lblEpoch == Integer.MAX_VALUE) {
+            Arrays.fill(lblStamp, 0);
+            lblEpoch = 1;
+        }
+        lblIds = 0;
+        lblLen = 0;
+    }
+
+    /**
+     * Reclassifica per a un color les caselles buides indicades.
+     */
+    private void refreshMoves(long[] dirty, int c) {
+        long[] caps = captureMoves[c];
+        for (int e = nextBit(dirty, 0); e >= 0; e = nextBit(dirty, e + 1)) {
+            long bit = 1L << e;
+            if (isLegalCapture(e, c)) caps[e >>> 6] |= bit;
+            else caps[e >>> 6] &= ~bit;
+        }
+    }
+
+    /**
+     * Una fitxa del color {@code c} a la casella buida {@code e} és una captura legal
+     * si toca fitxes pròpies, el grup resultant toca algun grup rival i tots els que
+     * toca són més petits. La mida del grup resultant és 1 més la dels grups propis
+     * adjacents, i el grup rival més gran és el màxim entre els rivals adjacents a la
+     * casella i els adjacents a aquests grups propis.
+     */
+    private boolean isLegalCapture(int e, int c) {
+        long[] own = stones[c];
+        long[] opp = stones[c ^ 1];
+        int total = 1, maxE = 0, nSeen = 0;
+        for (int nb : geo.nbrs[e]) {
+            if (test(own, nb)) {
+                int id = groupOf(nb);
+                boolean dup = false;
+                for (int k = 0; k < nSeen; k++) if (seen[k] == id) { dup = true; break; }
+                if (dup) continue;
+                seen[nSeen++] = id;
+                total += groupSize[id];
+                int me = maxEnemyOf(id);
+                if (me > maxE) maxE = me;
+            } else if (test(opp, nb)) {
+                int es = groupSize[groupOf(nb)];
+                if (es > maxE) maxE = es;
+            }
+        }
+        return nSeen > 0 && maxE > 0 && maxE < total;
+    }
+
+    /**
+     * Grup de la fitxa {@code b}: s'etiqueta la primera vegada que es demana dins de
+     * la reclassificació en curs.
+     * @return Identificador del grup.
+     */
+    private int groupOf(int b) {
+        if (lblStamp[b] == lblEpoch) return label[b];
+        long[] set = test(stones[P1], b) ? stones[P1] : stones[P2];
+        int id = ++lblIds;
+        int from = lblLen;
+        lblStamp[b] = lblEpoch;
+        label[b] = id;
+        members[lblLen++] = b;
+        for (int k = from; k < lblLen; k++) {
+            for (int nb : geo.nbrs[members[k]]) {
+                if (lblStamp[nb] != lblEpoch && test(set, nb)) {
+                    lblStamp[nb] = lblEpoch;
+                    label[nb] = id;
+                    members[lblLen++] = nb;
+                }
+            }
+        }
+        groupStart[id] = from;
+        groupSize[id] = lblLen - from;
+        maxAdjEnemy[id] = -1;
+        return id;
+    }
+
+    /**
+     * @return Mida del grup rival més gran en contacte amb el grup {@code id}.
+     */
+    private int maxEnemyOf(int id) {
+        if (maxAdjEnemy[id] >= 0) return maxAdjEnemy[id];
+        long[] enemy = test(stones[P1], members[groupStart[id]]) ? stones[P2] : stones[P1];
+        int max = 0;
+        for (int k = groupStart[id], end = k + groupSize[id]; k < end; k++) {
+            for (int nb : geo.nbrs[members[k]]) {
+                if (test(enemy, nb)) {
+                    int es = groupSize[groupOf(nb)];
+                    if (es > max) max = es;
+                }
+            }
+        }
+        maxAdjEnemy[id] = max;
+        return max;
+    }
+
+    /**
+     * Expandeix {@code set} fins a omplir els components connexos dins de {@code within}.
+     */
+    private void flood(long[] set, long[] within) {
+        long[] next = tmpE;
+        while (true) {
+            expand(set, next);
+            boolean changed = false;
+            for (int i = 0; i < geo.words; i++) {
+                long w = (next[i] & within[i]) | set[i];
+                if (w != set[i]) {
+                    set[i] = w;
+                    changed = true;
+                }
+            }
+            if (!changed) return;
+        }
+    }
+
+    /**
+     * Escriu a {@code dst} les caselles vàlides veïnes d'alguna casella de {@code src}.
+     */
+    private void expand(long[] src, long[] dst) {
+        int w = geo.width;
+        for (int i = 0; i < geo.words; i++) {
+            long acc = shifted(src, i, 1) | shifted(src, i, -1)
+                     | shifted(src, i, w) | shifted(src, i, -w)
+                     | shifted(src, i, w + 1) | shifted(src, i, -(w + 1));
+            dst[i] = acc & geo.valid[i];
+        }
+    }
+
+    /**
+     * Paraula {@code i} del vector de bits desplaçat {@code k} posicions
+     * (cap a índexs alts si k &gt; 0, cap a índexs baixos si k &lt; 0).
+     */
+    private static long shifted(long[] a, int i, int k) {
+        if (k > 0) {
+            int q = k >>> 6, r = k & 63;
+            int j = i - q;
+            long v = (j >= 0) ? a[j] << r : 0;
+            if (r != 0 && j - 1 >= 0) v |= a[j - 1] >>> (64 - r);
+            return v;
+        } else {
+            k = -k;
+            int q = k >>> 6, r = k & 63;
+            int j = i + q;
+            long v = (j < a.length) ? a[j] >>> r : 0;
+            if (r != 0 && j + 1 < a.length) v |= a[j + 1] << (64 - r);
+            return v;
+        }
+    }
+
+    private static boolean test(long[] set, int bit) {
+        return (set[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    private static void clear(long[] set) {
+        Arrays.fill(set, 0L);
+    }
+
+    private static int popCount(long[] set) {
+        int c = 0;
+        for (long w : set) c += Long.bitCount(w);
+        return c;
+    }
+
+    /**
+     * @return Primer bit actiu a partir de {@code from}, o -1 si no n'hi ha.
+     */
+    private static int nextBit(long[] set, int from) {
+        int i = from >>> 6;
+        if (i >= set.length) return -1;
+        long w = set[i] & (-1L << from);
+        while (true) {
+            if (w != 0) return (i << 6) + Long.numberOfTrailingZeros(w);
+            if (++i == set.length) return -1;
+            w = set[i];
+        }
+    }
+
+    private static int colorIndex(PlayerType p) {
+        return p == PlayerType.PLAYER1 ? P1 : P2;
+    }
+
+    /**
+     * Dades precalculades i compartides per a una mida de tauler: màscara de caselles
+     * vàlides, llista de veïns de cada casella i claus Zobrist indexades per bit.
+     */
+    private static final class Geometry {
+
+        private static final Geometry[] cache = new Geometry[16];
+
+        final int n, squareSize, width, bits, words, numCells, evalCells;
+        final long[] valid;
+        final int[] cellBits;
+        final int[][] nbrs;
+        final int[] evalCell;     // Bit -> índex dins la finestra de l'avaluació (-1 si en queda fora)
+        final int[] evalBit;      // Índex de la finestra -> bit
+        final int[][] evalNbrs;   // Veïns dins la finestra segons les direccions de l'avaluació
+        final long[][] keys;
+        final long sideKey;
+
+        // Mateixes direccions que la llibreria (Dir)
+        private static final int[][] DIRS = {{1,0}, {1,1}, {-1,0}, {-1,-1}, {0,-1}, {0,1}};
+
+        private Geometry(int n) {
+            this.n = n;
+            this.squareSize = 2 * n - 1;
+            this.width = squareSize + 1;
+            this.bits = squareSize * width;
+            this.words = (bits + 63) >>> 6;
+            this.valid = new long[words];
+            this.nbrs = new int[bits][];
+            this.keys = new long[2][bits];
+
+            Zobrist z = Zobrist.forSize(squareSize);
+            int[] cells = new int[bits];
+            int nc = 0;
+            for (int x = 0; x < squareSize; x++) {
+                for (int y = 0; y < squareSize; y++) {
+                    if (!inHex(x, y)) continue;
+                    int b = x * width + y;
+                    valid[b >>> 6] |= 1L << b;
+                    cells[nc++] = b;
+                    keys[P1][b] = z.stone(x * squareSize + y, PlayerType.PLAYER1);
+                    keys[P2][b] = z.stone(x * squareSize + y, PlayerType.PLAYER2);
+                }
+            }
+            this.cellBits = Arrays.copyOf(cells, nc);
+            this.numCells = nc;
+            this.sideKey = z.side();
+
+            int[] tmp = new int[6];
+            for (int b : cellBits) {
+                int x = b / width, y = b % width, k = 0;
+                for (int[] d : DIRS) {
+                    int nx = x + d[0], ny = y + d[1];
+                    if (inHex(nx, ny)) tmp[k++] = nx * width + ny;
+                }
+                nbrs[b] = Arrays.copyOf(tmp, k);
+            }
+
+            this.evalCells = n * n;
+            this.evalCell = new int[bits];
+            this.evalBit = new int[evalCells];
+            this.evalNbrs = new int[evalCells][];
+            Arrays.fill(evalCell, -1);
+            for (int x = 0; x < n; x++) {
+                for (int y = 0; y < n; y++) {
+                    evalCell[x * width + y] = x * n + y;
+                    evalBit[x * n + y] = x * width + y;
+                }
+            }
+            for (int x = 0; x < n; x++) {
+                for (int y = 0; y < n; y++) {
+                    int k = 0;
+                    for (int[] d : EvalKernel.DIRS) {
+                        int nx = x + d[0], ny = y + d[1];
+                        if (nx >= 0 && ny >= 0 && nx < n && ny < n) tmp[k++] = nx * n + ny;
+                    }
+                    evalNbrs[x * n + y] = Arrays.copyOf(tmp, k);
+                }
+            }
+        }
+
+        private boolean inHex(int x, int y) {
+            if (y < 0 || y >= squareSize) return false;
+            int lo = Math.max(0, y - n + 1);
+            int hi = Math.min(n + y, squareSize);
+            return x >= lo && x < hi;
+        }
+
+        static Geometry forSize(int n) {
+            Geometry g = cache[n];
+            if (g == null) {
+                synchronized (cache) {
+                    g = cache[n];
+                    if (g == null) {
+                        g = new Geometry(n);
+                        cache[n] = g;
+                    }
+                }
+            }
+            return g;
+        }
+    }
 }
@@ -0,0 +1,85 @@
+package edu.upc.epsevg.prop.oust.players.OrtizSerralta;
+
+/**
+ * Senyal de cancel·lació d'una cerca.
+ * <p>
+ * El pot activar un altre fil (el watchdog de la partida crida {@code timeout()}) o
+ * el propi motor quan passa el seu termini. L'indicador és {@code volatile}: el fil
+ * de cerca el consulta cada cert nombre de nodes i el JIT no pot treure'n la lectura
+ * fora del bucle. Entre consultes el motor treballa amb una còpia local sense cost.
+ * </p>
+ * <p>
+ * També es guarda l'instant de la cancel·lació per mesurar quant tarda el motor a
+ * retornar després de rebre-la (latència d'aturada).
+ * </p>
+ * @author OrtizSerralta
+ */
+public final class CancellationToken {
+
+    /** Termini que indica que no n'hi ha cap. */
+    public static final long NO_DEADLINE = Long.MAX_VALUE;
+
+    private volatile boolean cancelled;
+    private volatile long cancelledAt;
+    private volatile long deadline = NO_DEADLINE;
+
+    /**
+     * Prepara el token per a una cerca nova.
+     * @param deadlineNanos Termini en temps de {@link System#nanoTime()}, o {@link #NO_DEADLINE}.
+     */
+    public void reset(long deadlineNanos) {
+        deadline = deadlineNanos;
+        cancelledAt = 0;
+        cancelled = false;
+    }
+
+    /**
+     * Canvia el termini d'una cerca en curs (p. ex. quan una reflexió sense límit
+     * passa a ser la cerca del moviment real).
+     * @param deadlineNanos Termini nou en temps de {@link System#nanoTime()}.
+     */
+    public void setDeadline(long deadlineNanos) {
+        deadline = deadlineNanos;
+    }
+
+    /**
+     * Demana l'aturada de la cerca. Es pot cridar des de qualsevol fil; només compta la primera crida.
+     */
+    public void cancel() {
+        if (!cancelled) {
+            cancelledAt = System.nanoTime();
+            cancelled = true;
+        }
+    }
+
+    /**
+     * Consulta si cal aturar-se, comprovant també el termini.
+     * @return Cert si la cerca s'ha cancel·lat o ha passat el termini.
+     */
+    public boolean poll() {
+        if (cancelled) return true;
+        long d = deadline;
+        if (d != NO_DEADLINE && System.nanoTime() - d >= 0) {
+            cancelledAt = d;
+            cancelled = true;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return Cert si la cerca s'ha cancel·lat (sense comprovar el termini).
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Temps transcorregut des de la cancel·lació.
+     * @param now Instant de referència ({@link System#nanoTime()}).
+     * @return Nanosegons des de la cancel·lació, o -1 si no s'ha cancel·lat.
+     */
+    public long nanosSinceCancel(long now) {
+        return cancelled ? Math.max(0, now - cancelledAt) : -1;
+    }
+}
@@ -0,0 +1,280 @@
+package edu.upc.epsevg.prop.oust.players.OrtizSerralta;
+
+import edu.upc.epsevg.prop.oust.MyStatus;
+import edu.upc.epsevg.prop.oust.PlayerType;
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Solucionador exacte de finals.
+ * <p>
+ * Quan queden poques caselles buides ja no cal heurística: es busca una prova de
+ * victòria o derrota. La cerca és alfa-beta en format negamax (puntuació relativa al
+ * jugador que mou; si una captura manté el torn no es canvia el signe) amb només tres
+ * valors: victòria a k jugades ({@code WIN - k}), derrota a k jugades
+ * ({@code -(WIN - k)}) i desconegut/taules (0). S'aprofundeix jugada a jugada, de
+ * manera que la primera victòria trobada és la més ràpida.
+ * </p>
+ * <p>
+ * Té la seva pròpia Taula de Transposició petita (indexada per la Zobrist de
+ * {@link MyStatus}, sense combinar-la amb el jugador arrel perquè els valors ja són
+ * relatius a qui mou). Les jugades s'ordenen per trobar abans les victòries: la de la
+ * TT, les que guanyen immediatament i les captures, de més fitxes a menys.
+ * </p>
+ * @author OrtizSerralta
+ */
+public class EndgameSolver {
+
+    /** Valor d'una victòria immediata per al jugador que mou. */
+    static final int WIN = 1000000;
+    /** Per sobre d'aquest valor (en absolut) la posició està resolta. */
+    static final int PROVEN = WIN - 1000;
+
+    private static final int FLAG_EXACT = 0;
+    private static final int FLAG_LOWER = 1;
+    private static final int FLAG_UPPER = 2;
+
+    /** Mida per defecte de la TT del solucionador (entrades, potència de 2). */
+    public static final int DEFAULT_TT_ENTRIES = 1 << 18;
+
+    private final long[] ttKeys;
+    private final long[] ttData;
+    private final int ttMask;
+
+    private long nodes;
+    private boolean horizon;
+    private boolean stopped;
+    private CancellationToken token;
+    private long deadline;
+    private int rootBestMove;
+
+    private int[][] moveBufs = new int[64][];
+    private int[][] orderBufs = new int[64][];
+
+    /**
+     * Resultat d'una resolució.
+     */
+    public static final class Solution {
+        /** Seqüència completa del torn (buida si no s'ha resolt). */
+        public final List<Point> sequence;
+        /** Valor per al jugador que mou: {@code > 0} guanya, {@code < 0} perd, 0 taules o desconegut. */
+        public final int value;
+        /** Cert si el valor està demostrat. */
+        public final boolean proven;
+        /** Profunditat (en col·locacions) a què s'ha resolt. */
+        public final int depth;
+        /** Nodes explorats. */
+        public final long nodes;
+
+        Solution(List<Point> sequence, int value, boolean proven, int depth, long nodes) {
+            this.sequence = sequence;
+            this.value = value;
+            this.proven = proven;
+            this.depth = depth;
+            this.nodes = nodes;
+        }
+
+        /** @return Col·locacions fins al final de la partida (0 si no està resolt com a victòria o derrota). */
+        public int distance() {
+            return Math.abs(value) > PROVEN ? WIN - Math.abs(value) : 0;
+        }
+    }
+
+    /**
+     * Solucionador amb la TT de mida per defecte.
+     */
+    public EndgameSolver() {
+        this(DEFAULT_TT_ENTRIES);
+    }
+
+    /**
+     * @param ttEntries Entrades de la TT (s'arrodoneix a la potència de 2 inferior).
+     */
+    public EndgameSolver(int ttEntries) {
+        int size = Integer.highestOneBit(Math.max(1024, ttEntries));
+        ttKeys = new long[size];
+        ttData = new long[size];
+        ttMask = size - 1;
+    }
+
+    /**
+     * Intenta resoldre la posició.
+     * @param root Posició (no es modifica).
+     * @param maxPlies Profunditat màxima en col·locacions.
+     * @param token Cancel·lació externa (pot ser null).
+     * @param deadlineNanos Termini propi en temps de {@link System#nanoTime()}.
+     * @return Solució; {@code proven} indica si s'ha demostrat el resultat.
+     */
+    public Solution solve(MyStatus root, int maxPlies, CancellationToken token, long deadlineNanos) {
+        this.token = token;
+        this.deadline = deadlineNanos;
+        this.nodes = 0;
+        this.stopped = false;
+        MyStatus s = new MyStatus(root);
+
+        int value = 0;
+        int depth = 0;
+        boolean proven = false;
+        for (int d = 1; d <= maxPlies; d++) {
+            horizon = false;
+            int v = search(s, d, -WIN - 1, WIN + 1, 0);
+            if (stopped) break;
+            depth = d;
+            value = v;
+            if (Math.abs(v) > PROVEN || !horizon) {
+                proven = true;
+                break;
+            }
+        }
+        if (!proven) return new Solution(new ArrayList<>(), value, false, depth, nodes);
+
+        // Seqüència del torn: a cada pas es torna a cercar l'arrel (la TT ja ho té quasi tot)
+        List<Point> sequence = new ArrayList<>();
+        PlayerType mover = s.getCurrentPlayer();
+        int remaining = depth;
+        while (!s.isGameOver() && s.getCurrentPlayer() == mover) {
+            rootBestMove = -1;
+            search(s, Math.max(1, remaining), -WIN - 1, WIN + 1, 0);
+            if (stopped || rootBestMove < 0) return new Solution(new ArrayList<>(), value, false, depth, nodes);
+            sequence.add(s.toPoint(rootBestMove));
+            s.makeMove(rootBestMove);
+            remaining--;
+        }
+        return new Solution(sequence, value, true, depth, nodes);
+    }
+
+    /**
+     * Cerca negamax de prova.
+     * @return Valor per al jugador que mou a {@code s}.
+     */
+    private int search(MyStatus s, int depth, int alpha, int beta, int ply) {
+        if ((++nodes & 1023) == 0) {
+            if ((token != null && token.poll()) || System.nanoTime() - deadline >= 0) stopped = true;
+        }
+        if (stopped) return 0;
+        if (depth <= 0) {
+            horizon = true;
+            return 0;
+        }
+
+        long key = s.getHash();
+        int slot = (int) key & ttMask;
+        int ttMove = -1;
+        long d = ttData[slot];
+        if (d != 0 && (ttKeys[slot] ^ d) == key) {
+            ttMove = (int) ((d >>> 32) & 0xFFFF) - 1;
+            int storedDepth = (int) ((d >>> 48) & 0xFF);
+            int v = fromTT((int) d, ply);
+            boolean usable = Math.abs(v) > PROVEN || storedDepth >= depth;
+            if (ply > 0 && usable) {
+                int flag = (int) ((d >>> 56) & 3);
+                if (v == 0) horizon = true;
+                if (flag == FLAG_EXACT) return v;
+                if (flag == FLAG_LOWER && v >= beta) return v;
+                if (flag == FLAG_UPPER && v <= alpha) return v;
+            }
+        }
+
+        if (ply >= moveBufs.length) {
+            moveBufs = Arrays.copyOf(moveBufs, ply * 2);
+            orderBufs = Arrays.copyOf(orderBufs, ply * 2);
+        }
+        if (moveBufs[ply] == null) {
+            moveBufs[ply] = new int[s.getCellCount()];
+            orderBufs[ply] = new int[s.getCellCount()];
+        }
+        int[] moves = moveBufs[ply];
+        int[] order = orderBufs[ply];
+        int n = s.generateMoves(moves);
+        if (n == 0) return 0;
+
+        // Ordenació: victòria immediata, jugada de la TT, captures (més fitxes primer)
+        PlayerType mover = s.getCurrentPlayer();
+        PlayerType opp = (mover == PlayerType.PLAYER1) ? PlayerType.PLAYER2 : PlayerType.PLAYER1;
+        int oppBefore = s.getStoneCount(opp);
+        for (int i = 0; i < n; i++) {
+            s.makeMove(moves[i]);
+            boolean win = s.isGameOver() && s.GetWinner() == mover;
+            int captured = oppBefore - s.getStoneCount(opp);
+            s.unmakeMove();
+            if (win) {
+                if (ply == 0) rootBestMove = moves[i];
+                store(slot, key, WIN - (ply + 1), ply, depth, FLAG_EXACT, moves[i]);
+                return WIN - (ply + 1);
+            }
+            order[i] = (moves[i] == ttMove) ? Integer.MAX_VALUE : captured;
+        }
+
+        int originalAlpha = alpha;
+        int best = -WIN - 1;
+        int bestMove = moves[0];
+        for (int i = 0; i < n; i++) {
+            // Selecció: la jugada amb més prioritat d'entre les que queden
+            int pick = i;
+            for (int j = i + 1; j < n; j++) if (order[j] > order[pick]) pick = j;
+            int m = moves[pick];
+            moves[pick] = moves[i];
+            moves[i] = m;
+            int o = order[pick];
+            order[pick] = order[i];
+            order[i] = o;
+
+            s.makeMove(m);
+            int v;
+            if (s.isGameOver()) {
+                v = (s.GetWinner() == mover) ? WIN - (ply + 1) : -(WIN - (ply + 1));
+            } else if (s.getCurrentPlayer() == mover) {
+                v = search(s, depth - 1, alpha, beta, ply + 1);
+            } else {
+                v = -search(s, depth - 1, -beta, -alpha, ply + 1);
+            }
+            s.unmakeMove();
+            if (stopped) return 0;
+
+            if (v > best) {
+                best = v;
+                bestMove = m;
+            }
+            if (v > alpha) alpha = v;
+            if (alpha >= beta) break;
+        }
+
+        if (ply == 0) rootBestMove = bestMove;
+        int flag = (best <= originalAlpha) ? FLAG_UPPER : (best >= beta) ? FLAG_LOWER : FLAG_EXACT;
+        store(slot, key, best, ply, depth, flag, bestMove);
+        return best;
+    }
+
+    private void store(int slot, long key, int value, int ply, int depth, int flag, int move) {
+        long d = (toTT(value, ply) & 0xFFFFFFFFL)
+               | ((long) (move + 1) << 32)
+               | ((long) Math.min(depth, 255) << 48)
+               | ((long) flag << 56)
+               | (1L << 63);
+        ttData[slot] = d;
+        ttKeys[slot] = key ^ d;
+    }
+
+    /** Els valors resolts es guarden relatius al node (com {@link PlayerMiniMax#scoreToTT}). */
+    private static int toTT(int v, int ply) {
+        if (v > PROVEN) return v + ply;
+        if (v < -PROVEN) return v - ply;
+        return v;
+    }
+
+    private static int fromTT(int v, int ply) {
+        if (v > PROVEN) return v - ply;
+        if (v < -PROVEN) return v + ply;
+        return v;
+    }
+
+    /**
+     * Buida la TT del solucionador.
+     */
+    public void clear() {
+        Arrays.fill(ttKeys, 0);
+        Arrays.fill(ttData, 0);
+    }
+}
@@ -0,0 +1,87 @@
+package edu.upc.epsevg.prop.oust.players.OrtizSerralta;
+
+/**
+ * Memòria cau de l'avaluació estàtica indexada per la clau Zobrist.
+ * <p>
+ * Les mateixes fulles s'avaluen moltes vegades: a cada iteració de l'IDS, a les
+ * re-cerques de les finestres d'aspiració i de la PVS, i en arribar-hi per ordres de
+ * jugades diferents. La taula guarda la darrera avaluació de cada posició en vectors
+ * primitius, amb una sola entrada per índex: una posició nova reemplaça sempre la que
+ * hi havia (la taula perd informació, però no dóna mai un valor d'una altra posició).
+ * </p>
+ * <p>
+ * Té mida pròpia, independent de la {@link TranspositionTable}, i es comparteix entre
+ * fils amb el mateix esquema sense bloquejos: la primera paraula guarda
+ * {@code clau XOR dades} i una lectura barrejada de dues escriptures no passa la
+ * verificació. Els encerts i les fallades es compten a cada motor, no aquí.
+ * </p>
+ * @author OrtizSerralta
+ */
+public class EvalCache {
+
+    private static final int BYTES_PER_ENTRY = 16;
+    private static final long VALID = 1L << 63;
+
+    private final long[] keys;
+    private final long[] data;
+    private final int mask;
+
+    /**
+     * Crea una taula que ocupa, com a màxim, la memòria indicada.
+     * El nombre d'entrades s'arrodoneix a la potència de 2 inferior.
+     * @param sizeMB Mida en megabytes (mínim 1).
+     */
+    public EvalCache(int sizeMB) {
+        long bytes = Math.max(1, sizeMB) * 1024L * 1024L;
+        long entries = Long.highestOneBit(bytes / BYTES_PER_ENTRY);
+        if (entries > (1 << 28)) entries = 1 << 28;
+        this.keys = new long[(int) entries];
+        this.data = new long[(int) entries];
+        this.mask = (int) entries - 1;
+    }
+
+    /**
+     * Esborra tot el contingut de la taula.
+     */
+    public void clear() {
+        java.util.Arrays.fill(keys, 0L);
+        java.util.Arrays.fill(data, 0L);
+    }
+
+    /**
+     * @return Nombre d'entrades de la taula.
+     */
+    public int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * Busca l'avaluació d'una posició.
+     * @param key Clau de l'estat (la mateixa que es fa servir a la TT).
+     * @return Paraula de dades, o 0 si no hi és (vegeu {@link #isValid(long)}).
+     */
+    public long probe(long key) {
+        int i = (int) key & mask;
+        long d = data[i];
+        if ((keys[i] ^ d) == key && (d & VALID) != 0) return d;
+        return 0L;
+    }
+
+    /**
+     * Guarda l'avaluació d'una posició.
+     * @param key Clau de l'estat.
+     * @param score Avaluació.
+     */
+    public void store(long key, int score) {
+        int i = (int) key & mask;
+        long d = (score & 0xFFFFFFFFL) | VALID;
+        keys[i] = key ^ d;
+        data[i] = d;
+    }
+
+    /** @return Cert si la paraula de dades correspon a una entrada trobada. */
+    public static boolean isValid(long data) { return (data & VALID) != 0; }
+
+    /** @return Avaluació guardada. */
+    public static int score(long data) { return (int) data; }
+}
@@ -0,0 +1,274 @@
+package edu.upc.epsevg.prop.oust.players.OrtizSerralta;
+
+/**
+ * Nucli comú del recompte de grups de l'avaluació.
+ * <p>
+ * Calcula, sobre un tauler en format de la llibreria, els totals que pondera
+ * {@link WeightedEvaluator}: suma dels quadrats de les mides dels grups i fitxes de
+ * cada color. {@link edu.upc.epsevg.prop.oust.MyStatus} manté els mateixos totals
+ * incrementalment per a la cerca; aquest recorregut és el de {@link GameStatusTunned}.
+ * També compta les jugades legals de cada color ({@link #moves(byte[], int, byte)})
+ * sense passar per la llibreria, amb els veïns i les regles del joc.
+ * </p>
+ * <p>
+ * Com l'heurística original, només es recorren les caselles amb {@code x < n} i
+ * {@code y < n}, amb les direccions {@link #DIRS}. El recorregut no reserva memòria:
+ * les taules de veïns són estàtiques per mida, la pila és un vector d'enters i les
+ * marques de visitat es renoven amb un comptador de generació en lloc d'esborrar-les.
+ * </p>
+ * @author OrtizSerralta
+ */
+public final class EvalKernel {
+
+    /** Direccions que fa servir l'avaluació per agrupar fitxes. */
+    public static final int[][] DIRS = {{1,0}, {1,-1}, {0,-1}, {-1,0}, {-1,1}, {0,1}};
+
+    /** Direccions dels veïns segons les regles del joc (les de la llibreria). */
+    private static final int[][] GAME_DIRS = {{1,0}, {1,1}, {-1,0}, {-1,-1}, {0,-1}, {0,1}};
+
+    private static final int MAX_N = 15;
+    private static final int MAX_CELLS = (2 * MAX_N - 1) * (2 * MAX_N - 1);
+    private static final Tables[] cache = new Tables[MAX_N + 1];
+
+    // Buffers de treball per fil (mida màxima de tauler)
+    private static final ThreadLocal<EvalKernel> local = ThreadLocal.withInitial(EvalKernel::new);
+
+    private final int[] stack = new int[MAX_N * MAX_N];
+    private final int[] mark = new int[MAX_N * MAX_N];
+    private final int[] totals = new int[4];
+    private int stamp;
+
+    // Etiquetatge de grups del tauler sencer per comptar jugades
+    private final int[] cellStamp = new int[MAX_CELLS];
+    private final int[] cellGroup = new int[MAX_CELLS];
+    private final int[] members = new int[MAX_CELLS];
+    private final int[] groupSize = new int[MAX_CELLS];
+    private final int[] groupMaxEnemy = new int[MAX_CELLS];
+    private final int[] seen = new int[GAME_DIRS.length];
+    private final int[] mobility = new int[2];
+    private int cellEpoch;
+
+    private EvalKernel() {
+    }
+
+    /**
+     * Recompte de grups d'un tauler en format de la llibreria (vector
+     * {@code x * squareSize + y} amb el codi del jugador a cada casella, 0 si és buida).
+     * @param board Caselles del tauler.
+     * @param n Mida del costat de l'hexàgon.
+     * @param me Codi del jugador propi.
+     * @return Vector del fil amb la suma de quadrats i les fitxes pròpies i, després,
+     *         les del rival; és vàlid fins a la crida següent des del mateix fil.
+     */
+    public static int[] groups(byte[] board, int n, byte me) {
+        Tables t = tables(n);
+        EvalKernel k = local.get();
+        int[] mark = k.mark, stack = k.stack;
+        int stamp = k.nextStamp();
+        int[] index = t.boardIndex;
+        int[][] nbrs = t.nbrs;
+
+        int mySq = 0, myStones = 0, oppSq = 0, oppStones = 0;
+        for (int w = 0; w < t.cells; w++) {
+            byte c = board[index[w]];
+            if (c == 0 || mark[w] == stamp) continue;
+            int size = 0, sp = 0;
+            mark[w] = stamp;
+            stack[sp++] = w;
+            while (sp > 0) {
+                int v = stack[--sp];
+                size++;
+                for (int nw : nbrs[v]) {
+                    if (mark[nw] != stamp && board[index[nw]] == c) {
+                        mark[nw] = stamp;
+                        stack[sp++] = nw;
+                    }
+                }
+            }
+            if (c == me) {
+                mySq += size * size;
+                myStones += size;
+            } else {
+                oppSq += size * size;
+                oppStones += size;
+            }
+        }
+        int[] totals = k.totals;
+        totals[0] = mySq;
+        totals[1] = myStones;
+        totals[2] = oppSq;
+        totals[3] = oppStones;
+        return totals;
+    }
+
+    /**
+     * Jugades legals de cada color sobre un tauler en format de la llibreria, tingui o
+     * no el torn: una casella buida és legal si no toca cap fitxa pròpia o si el grup
+     * que formaria és més gran que tots els grups rivals amb què entraria en contacte
+     * (i n'hi ha algun). Es recorre el tauler una sola vegada per etiquetar els grups.
+     * @param board Caselles del tauler.
+     * @param n Mida del costat de l'hexàgon.
+     * @param me Codi del jugador propi.
+     * @return Vector del fil amb les jugades pròpies i les del rival; és vàlid fins a
+     *         la crida següent des del mateix fil.
+     */
+    public static int[] moves(byte[] board, int n, byte me) {
+        Tables t = tables(n);
+        EvalKernel k = local.get();
+        int[] cellStamp = k.cellStamp, cellGroup = k.cellGroup, members = k.members;
+        int[] groupSize = k.groupSize, groupMaxEnemy = k.groupMaxEnemy, seen = k.seen;
+        int epoch = k.nextEpoch();
+        int[][] nbrs = t.gameNbrs;
+
+        // Grups (índexs consecutius dins de members) i mida de cadascun
+        int groups = 0, len = 0;
+        for (int c : t.hexCells) {
+            byte color = board[c];
+            if (color == 0 || cellStamp[c] == epoch) continue;
+            int from = len;
+            cellStamp[c] = epoch;
+            cellGroup[c] = groups;
+            members[len++] = c;
+            for (int i = from; i < len; i++) {
+                for (int nb : nbrs[members[i]]) {
+                    if (cellStamp[nb] != epoch && board[nb] == color) {
+                        cellStamp[nb] = epoch;
+                        cellGroup[nb] = groups;
+                        members[len++] = nb;
+                    }
+                }
+            }
+            groupSize[groups++] = len - from;
+        }
+        // Grup rival més gran en contacte amb cada grup
+        for (int g = 0; g < groups; g++) groupMaxEnemy[g] = 0;
+        for (int i = 0; i < len; i++) {
+            int c = members[i];
+            int g = cellGroup[c];
+            for (int nb : nbrs[c]) {
+                if (board[nb] != 0 && board[nb] != board[c]) {
+                    int es = groupSize[cellGroup[nb]];
+                    if (es > groupMaxEnemy[g]) groupMaxEnemy[g] = es;
+                }
+            }
+        }
+
+        int own = 0, opp = 0;
+        for (int e : t.hexCells) {
+            if (board[e] != 0) continue;
+            int[] nb = nbrs[e];
+            // Els dos colors a la vegada: 0 per al propi, 1 per al rival
+            for (int side = 0; side < 2; side++) {
+                int total = 1, maxE = 0, nSeen = 0;
+                for (int x : nb) {
+                    byte color = board[x];
+                    if (color == 0) continue;
+                    int g = cellGroup[x];
+                    if ((color == me) == (side == 0)) {
+                        boolean dup = false;
+                        for (int j = 0; j < nSeen; j++) if (seen[j] == g) { dup = true; break; }
+                        if (dup) continue;
+                        seen[nSeen++] = g;
+                        total += groupSize[g];
+                        if (groupMaxEnemy[g] > maxE) maxE = groupMaxEnemy[g];
+                    } else if (groupSize[g] > maxE) {
+                        maxE = groupSize[g];
+                    }
+                }
+                if (nSeen == 0 || (maxE > 0 && maxE < total)) {
+                    if (side == 0) own++;
+                    else opp++;
+                }
+            }
+        }
+        int[] result = k.mobility;
+        result[0] = own;
+        result[1] = opp;
+        return result;
+    }
+
+    private int nextEpoch() {
+        if (++cellEpoch == Integer.MAX_VALUE) {
+            java.util.Arrays.fill(cellStamp, 0);
+            cellEpoch = 1;
+        }
+        return cellEpoch;
+    }
+
+    private int nextStamp() {
+        if (++stamp == Integer.MAX_VALUE) {
+            java.util.Arrays.fill(mark, 0);
+            stamp = 1;
+        }
+        return stamp;
+    }
+
+    private static Tables tables(int n) {
+        Tables t = cache[n];
+        if (t == null) {
+            synchronized (cache) {
+                t = cache[n];
+                if (t == null) {
+                    t = new Tables(n);
+                    cache[n] = t;
+                }
+            }
+        }
+        return t;
+    }
+
+    /**
+     * Taules precalculades per a una mida: índex del tauler de cada casella de la
+     * finestra i veïns de cada casella dins de la finestra; caselles de l'hexàgon i
+     * veïns de joc (per índex del tauler) per comptar jugades.
+     */
+    private static final class Tables {
+        final int cells;
+        final int[] boardIndex;
+        final int[][] nbrs;
+        final int[] hexCells;
+        final int[][] gameNbrs;
+
+        Tables(int n) {
+            int squareSize = 2 * n - 1;
+            cells = n * n;
+            boardIndex = new int[cells];
+            nbrs = new int[cells][];
+            int[] tmp = new int[DIRS.length];
+            for (int x = 0; x < n; x++) {
+                for (int y = 0; y < n; y++) {
+                    boardIndex[x * n + y] = x * squareSize + y;
+                    int k = 0;
+                    for (int[] d : DIRS) {
+                        int nx = x + d[0], ny = y + d[1];
+                        if (nx >= 0 && ny >= 0 && nx < n && ny < n) tmp[k++] = nx * n + ny;
+                    }
+                    nbrs[x * n + y] = java.util.Arrays.copyOf(tmp, k);
+                }
+            }
+
+            int[] hex = new int[squareSize * squareSize];
+            int hc = 0;
+            gameNbrs = new int[squareSize * squareSize][];
+            for (int x = 0; x < squareSize; x++) {
+                for (int y = 0; y < squareSize; y++) {
+                    if (!inHex(n, x, y)) continue;
+                    hex[hc++] = x * squareSize + y;
+                    int k = 0;
+                    for (int[] d : GAME_DIRS) {
+                        int nx = x + d[0], ny = y + d[1];
+                        if (inHex(n, nx, ny)) tmp[k++] = nx * squareSize + ny;
+                    }
+                    gameNbrs[x * squareSize + y] = java.util.Arrays.copyOf(tmp, k);
+                }
+            }
+            hexCells = java.util.Arrays.copyOf(hex, hc);
+        }
+
+        private static boolean inHex(int n, int x, int y) {
+            int squareSize = 2 * n - 1;
+            if (y < 0 || y >= squareSize) return false;
+            return x >= Math.max(0, y - n + 1) && x < Math.min(n + y, squareSize);
+        }
+    }
+}
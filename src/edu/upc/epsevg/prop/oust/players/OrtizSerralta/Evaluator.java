@@ -0,0 +1,44 @@
+package edu.upc.epsevg.prop.oust.players.OrtizSerralta;
+
+import edu.upc.epsevg.prop.oust.MyStatus;
+import edu.upc.epsevg.prop.oust.PlayerType;
+
+/**
+ * Funció d'avaluació estàtica intercanviable.
+ * <p>
+ * La cerca de {@link PlayerMiniMax} avalua les fulles sobre {@link MyStatus} i
+ * {@link GameStatusTunned} avalua el tauler de la llibreria; totes dues delegen en un
+ * avaluador, de manera que es pot canviar la funció (o els seus pesos) sense heretar
+ * de cap de les dues classes. Els avaluadors no tenen estat mutable: una mateixa
+ * instància es pot compartir entre jugadors i fils.
+ * </p>
+ * <p>
+ * Les dues entrades han de donar el mateix valor per a la mateixa posició.
+ * </p>
+ * @author OrtizSerralta
+ */
+public interface Evaluator {
+
+    /**
+     * Avalua una posició de la cerca (no acabada).
+     * @param s Estat a avaluar (no es modifica).
+     * @param me Jugador des del punt de vista del qual s'avalua.
+     * @return Puntuació (positiva favorable a {@code me}).
+     */
+    int evaluate(MyStatus s, PlayerType me);
+
+    /**
+     * Avalua un estat en format de la llibreria (no acabat).
+     * @param s Estat a avaluar (no es modifica).
+     * @param me Jugador des del punt de vista del qual s'avalua.
+     * @return Puntuació (positiva favorable a {@code me}).
+     */
+    int evaluate(GameStatusTunned s, PlayerType me);
+
+    /**
+     * Identificador de la funció: es combina amb la clau de posició a la
+     * {@link EvalCache}, perquè avaluadors diferents no comparteixin entrades.
+     * @return Valor de 64 bits diferent per a cada funció.
+     */
+    long signature();
+}
@@ -0,0 +1,78 @@
+package edu.upc.epsevg.prop.oust.players.OrtizSerralta;
+
+import java.util.Arrays;
+
+/**
+ * Les 12 simetries del tauler hexagonal (6 rotacions, amb i sense reflexió).
+ * <p>
+ * Les regles d'Oust només depenen de l'adjacència entre caselles, de manera que
+ * qualsevol simetria de l'hexàgon transforma una posició en una d'equivalent. Les
+ * transformacions es calculen en coordenades cúbiques centrades, {@code a = x - (n-1)},
+ * {@code b = (n-1) - y}, {@code c = -a - b}: una rotació de 60 graus és
+ * {@code (a,b,c) -> (-c,-a,-b)} i la reflexió intercanvia {@code a} i {@code b}.
+ * </p>
+ * <p>
+ * Les caselles s'indexen com {@code x * squareSize + y}, igual que {@link Zobrist}.
+ * </p>
+ * @author OrtizSerralta
+ */
+final class HexSymmetry {
+
+    /** Nombre de simetries. */
+    static final int COUNT = 12;
+
+    private static final HexSymmetry[] cache = new HexSymmetry[16];
+
+    final int n;
+    final int squareSize;
+    /** {@code map[t][cell]}: casella transformada per la simetria t (-1 si la casella no és vàlida). */
+    final int[][] map;
+    /** {@code inverse[t][cell]}: casella original de la casella transformada. */
+    final int[][] inverse;
+
+    private HexSymmetry(int n) {
+        this.n = n;
+        this.squareSize = 2 * n - 1;
+        int cells = squareSize * squareSize;
+        map = new int[COUNT][cells];
+        inverse = new int[COUNT][cells];
+        for (int t = 0; t < COUNT; t++) {
+            Arrays.fill(map[t], -1);
+            Arrays.fill(inverse[t], -1);
+            for (int x = 0; x < squareSize; x++) {
+                for (int y = 0; y < squareSize; y++) {
+                    if (Math.abs(x - y) > n - 1) continue;
+                    int a = x - (n - 1), b = (n - 1) - y, c = -a - b;
+                    for (int k = 0; k < t % 6; k++) {
+                        int na = -c, nb = -a, nc = -b;
+                        a = na; b = nb; c = nc;
+                    }
+                    if (t >= 6) {
+                        int tmp = a; a = b; b = tmp;
+                    }
+                    int tx = a + (n - 1), ty = (n - 1) - b;
+                    map[t][x * squareSize + y] = tx * squareSize + ty;
+                    inverse[t][tx * squareSize + ty] = x * squareSize + y;
+                }
+            }
+        }
+    }
+
+    /**
+     * @param n Mida del costat de l'hexàgon.
+     * @return Taules de simetria compartides per a aquesta mida.
+     */
+    static HexSymmetry forSize(int n) {
+        HexSymmetry h = cache[n];
+        if (h == null) {
+            synchronized (cache) {
+                h = cache[n];
+                if (h == null) {
+                    h = new HexSymmetry(n);
+                    cache[n] = h;
+                }
+            }
+        }
+        return h;
+    }
+}
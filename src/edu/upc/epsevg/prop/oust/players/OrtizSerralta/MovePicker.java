@@ -0,0 +1,71 @@
+package edu.upc.epsevg.prop.oust.players.OrtizSerralta;
+
+import edu.upc.epsevg.prop.oust.MyStatus;
+
+/**
+ * Llista de jugades d'un node amb la seva puntuació d'ordenació.
+ * <p>
+ * Les jugades són índexs de bit de {@link MyStatus} i es guarden en vectors d'enters
+ * que es reutilitzen entre crides (la cerca en té una per ply), de manera que generar
+ * i ordenar les jugades d'un node no reserva memòria. En lloc d'ordenar tota la llista,
+ * {@link #next(int)} tria la millor de les que queden: quan hi ha poda, normalment
+ * només es demanen les primeres.
+ * </p>
+ * @author OrtizSerralta
+ */
+public final class MovePicker {
+
+    private int[] moves = new int[0];
+    private int[] scores = new int[0];
+    private int count;
+
+    /**
+     * Genera les jugades legals del jugador que té el torn.
+     * @param s Estat del node.
+     * @return Nombre de jugades.
+     */
+    public int generate(MyStatus s) {
+        if (moves.length < s.getCellCount()) {
+            moves = new int[s.getCellCount()];
+            scores = new int[s.getCellCount()];
+        }
+        count = s.generateMoves(moves);
+        return count;
+    }
+
+    /** @return Nombre de jugades de la darrera generació. */
+    public int size() { return count; }
+
+    /**
+     * @param i Posició a la llista.
+     * @return Jugada (índex de bit) de la posició {@code i}.
+     */
+    public int move(int i) { return moves[i]; }
+
+    /**
+     * Fixa la puntuació d'ordenació d'una jugada (més alta, abans).
+     * @param i Posició a la llista.
+     * @param value Puntuació.
+     */
+    public void setScore(int i, int value) { scores[i] = value; }
+
+    /**
+     * Selecció de la jugada {@code k}-èsima en ordre de puntuació: la millor d'entre les
+     * que queden passa a la posició {@code k}.
+     * @param k Posició en l'ordre de recorregut (s'han de demanar 0, 1, 2... en ordre).
+     * @return Jugada (índex de bit).
+     */
+    public int next(int k) {
+        int pick = k;
+        for (int j = k + 1; j < count; j++) {
+            if (scores[j] > scores[pick]) pick = j;
+        }
+        int m = moves[pick];
+        int sc = scores[pick];
+        moves[pick] = moves[k];
+        scores[pick] = scores[k];
+        moves[k] = m;
+        scores[k] = sc;
+        return m;
+    }
+}
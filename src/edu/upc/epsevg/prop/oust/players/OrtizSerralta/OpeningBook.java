@@ -0,0 +1,164 @@
+package edu.upc.epsevg.prop.oust.players.OrtizSerralta;
+
+import edu.upc.epsevg.prop.oust.MyStatus;
+import edu.upc.epsevg.prop.oust.PlayerType;
+import java.awt.Point;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Llibre d'obertures en un fitxer binari projectat a memòria.
+ * <p>
+ * El fitxer el genera {@link OpeningBookBuilder}. Cada posició es guarda amb la seva
+ * clau canònica: la clau Zobrist més petita entre les 12 simetries de l'hexàgon
+ * ({@link HexSymmetry}), i el moviment en el sistema de referència d'aquesta simetria.
+ * Les entrades estan ordenades per clau i es troben amb una cerca binària directament
+ * sobre el {@link MappedByteBuffer}, sense carregar el fitxer al heap.
+ * </p>
+ * <pre>
+ * capçalera (16 bytes): magic "OUBK", versió, n, nombre d'entrades
+ * entrada   (16 bytes): clau (long), casella (short), profunditat (byte), 0 (byte), nodes (int)
+ * </pre>
+ * @author OrtizSerralta
+ */
+public final class OpeningBook {
+
+    static final int MAGIC = 0x4F55424B; // "OUBK"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    static final int ENTRY_BYTES = 16;
+
+    /**
+     * Resultat d'una consulta al llibre.
+     */
+    public static final class Hit {
+        /** Casella a jugar (coordenades del tauler real). */
+        public final Point move;
+        /** Profunditat de la cerca amb què es va calcular l'entrada. */
+        public final int depth;
+        /** Nodes que va necessitar aquella cerca (el que s'estalvia). */
+        public final long nodes;
+
+        Hit(Point move, int depth, long nodes) {
+            this.move = move;
+            this.depth = depth;
+            this.nodes = nodes;
+        }
+    }
+
+    private final MappedByteBuffer buffer;
+    private final int n;
+    private final int entries;
+
+    private OpeningBook(MappedByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not an opening book file");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported opening book version " + buffer.getInt(4));
+        }
+        this.n = buffer.getInt(8);
+        this.entries = buffer.getInt(12);
+        if (n < 2 || n > 15 || (long) HEADER_BYTES + (long) entries * ENTRY_BYTES > buffer.capacity()) {
+            throw new IOException("Corrupt opening book header");
+        }
+    }
+
+    /**
+     * Projecta a memòria un fitxer de llibre.
+     * @param file Fitxer generat per {@link OpeningBookBuilder}.
+     * @return Llibre llest per consultar.
+     * @throws IOException Si el fitxer no es pot llegir o no té el format esperat.
+     */
+    public static OpeningBook open(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new OpeningBook(ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()));
+        }
+    }
+
+    /** @return Mida del tauler (costat de l'hexàgon) per a la qual és el llibre. */
+    public int getSize() {
+        return n;
+    }
+
+    /** @return Nombre de posicions del llibre. */
+    public int getEntryCount() {
+        return entries;
+    }
+
+    /**
+     * Busca la posició al llibre.
+     * @param s Estat del joc.
+     * @return Moviment del llibre, o null si la posició no hi és (o és d'una altra mida).
+     */
+    public Hit lookup(MyStatus s) {
+        if (s.getSize() != n || s.isGameOver()) return null;
+        HexSymmetry sym = HexSymmetry.forSize(n);
+        int t = canonicalSymmetry(s, sym);
+        long key = keyFor(s, sym, t);
+        int idx = find(key);
+        if (idx < 0) return null;
+
+        int off = HEADER_BYTES + idx * ENTRY_BYTES;
+        int cell = sym.inverse[t][buffer.getShort(off + 8)];
+        if (cell < 0) return null;
+        Point p = new Point(cell / sym.squareSize, cell % sym.squareSize);
+        return new Hit(p, buffer.get(off + 10), buffer.getInt(off + 12) & 0xFFFFFFFFL);
+    }
+
+    private int find(long key) {
+        int lo = 0, hi = entries - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            long k = buffer.getLong(HEADER_BYTES + mid * ENTRY_BYTES);
+            if (k < key) lo = mid + 1;
+            else if (k > key) hi = mid - 1;
+            else return mid;
+        }
+        return -1;
+    }
+
+    /**
+     * Simetria que dona la clau més petita (la canònica).
+     * @param s Estat del joc.
+     * @param sym Taules de simetria de la mida del tauler.
+     * @return Índex de la simetria.
+     */
+    static int canonicalSymmetry(MyStatus s, HexSymmetry sym) {
+        int best = 0;
+        long bestKey = keyFor(s, sym, 0);
+        for (int t = 1; t < HexSymmetry.COUNT; t++) {
+            long k = keyFor(s, sym, t);
+            if (k < bestKey) {
+                bestKey = k;
+                best = t;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Clau Zobrist de la posició transformada per una simetria. Amb la identitat
+     * coincideix amb {@link MyStatus#getHash()}.
+     * @param s Estat del joc.
+     * @param sym Taules de simetria.
+     * @param t Índex de la simetria.
+     * @return Clau de la posició transformada.
+     */
+    static long keyFor(MyStatus s, HexSymmetry sym, int t) {
+        Zobrist z = Zobrist.forSize(sym.squareSize);
+        int[] map = sym.map[t];
+        long key = 0;
+        for (int cell = 0; cell < map.length; cell++) {
+            if (map[cell] < 0) continue;
+            PlayerType p = s.getColor(cell / sym.squareSize, cell % sym.squareSize);
+            if (p != null) key ^= z.stone(map[cell], p);
+        }
+        if (s.getCurrentPlayer() == PlayerType.PLAYER2) key ^= z.side();
+        return key;
+    }
+}
@@ -0,0 +1,144 @@
+package edu.upc.epsevg.prop.oust.players.OrtizSerralta;
+
+import edu.upc.epsevg.prop.oust.GameStatus;
+import edu.upc.epsevg.prop.oust.MyStatus;
+import edu.upc.epsevg.prop.oust.PlayerMove;
+import java.awt.Point;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Generador fora de línia del llibre d'obertures ({@link OpeningBook}).
+ * <p>
+ * Recorre totes les posicions que s'arriben a fer amb les primeres jugades des del
+ * tauler buit, en redueix les simètriques a una de sola amb la clau canònica, i per a
+ * cada una fa una cerca profunda amb {@link PlayerMiniMax}. Es guarda la primera
+ * jugada de la seqüència trobada i també les de les posicions intermèdies d'una
+ * captura encadenada, perquè el torn sencer es pugui jugar des del llibre.
+ * </p>
+ * <pre>
+ * java ... OpeningBookBuilder &lt;n&gt; &lt;jugades&gt; &lt;profunditat&gt; &lt;fitxer&gt; [fils]
+ * </pre>
+ * @author OrtizSerralta
+ */
+public class OpeningBookBuilder {
+
+    private final int n;
+    private final int depth;
+    private final PlayerMiniMax engine;
+    private final HexSymmetry sym;
+    /** Clau canònica -> {casella canònica, profunditat, nodes}. */
+    private final Map<Long, long[]> entries = new TreeMap<>();
+
+    /**
+     * @param n Mida del tauler.
+     * @param depth Profunditat de les cerques.
+     * @param threads Fils de cada cerca.
+     */
+    public OpeningBookBuilder(int n, int depth, int threads) {
+        this.n = n;
+        this.depth = depth;
+        this.engine = new PlayerMiniMax(depth, PlayerMiniMax.DEFAULT_TT_SIZE_MB, threads);
+        this.sym = HexSymmetry.forSize(n);
+    }
+
+    /**
+     * Cerca totes les posicions de les primeres jugades.
+     * @param plies Nombre de col·locacions des del tauler buit.
+     */
+    public void build(int plies) {
+        List<GameStatus> frontier = new ArrayList<>();
+        frontier.add(new GameStatus(n));
+        Set<Long> seen = new HashSet<>();
+        for (int ply = 0; ply <= plies && !frontier.isEmpty(); ply++) {
+            List<GameStatus> next = new ArrayList<>();
+            long start = System.nanoTime();
+            int searched = 0;
+            for (GameStatus gs : frontier) {
+                MyStatus s = new MyStatus(gs);
+                int t = OpeningBook.canonicalSymmetry(s, sym);
+                if (!seen.add(OpeningBook.keyFor(s, sym, t))) continue;
+                searchPosition(gs);
+                searched++;
+                if (ply < plies) {
+                    for (Point p : gs.getMoves()) {
+                        GameStatus child = new GameStatus(gs);
+                        child.placeStone(p);
+                        if (!child.isGameOver()) next.add(child);
+                    }
+                }
+            }
+            System.out.printf("jugada %d: %d posicions, %.1f s%n", ply, searched, (System.nanoTime() - start) / 1e9);
+            frontier = next;
+        }
+    }
+
+    /**
+     * Cerca una posició i en guarda el torn sencer.
+     * @param gs Posició a cercar.
+     */
+    private void searchPosition(GameStatus gs) {
+        PlayerMove m = engine.move(gs);
+        long nodes = Math.min(m.getNumerOfNodesExplored(), 0xFFFFFFFFL);
+        MyStatus s = new MyStatus(gs);
+        for (Point p : m.getPoints()) {
+            if (s.isGameOver() || s.getCurrentPlayer() != gs.getCurrentPlayer()) break;
+            int t = OpeningBook.canonicalSymmetry(s, sym);
+            long key = OpeningBook.keyFor(s, sym, t);
+            int cell = sym.map[t][p.x * sym.squareSize + p.y];
+            entries.putIfAbsent(key, new long[] {cell, depth, nodes});
+            s.placeStone(p);
+        }
+    }
+
+    /**
+     * Escriu el llibre ordenat per clau.
+     * @param file Fitxer de sortida.
+     * @throws IOException Si no es pot escriure.
+     */
+    public void write(Path file) throws IOException {
+        if (file.getParent() != null) Files.createDirectories(file.getParent());
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(OpeningBook.MAGIC);
+            out.writeInt(OpeningBook.VERSION);
+            out.writeInt(n);
+            out.writeInt(entries.size());
+            // TreeMap<Long> ja recorre les claus en l'ordre amb signe de la cerca binària
+            for (Map.Entry<Long, long[]> e : entries.entrySet()) {
+                long[] v = e.getValue();
+                out.writeLong(e.getKey());
+                out.writeShort((int) v[0]);
+                out.writeByte((int) v[1]);
+                out.writeByte(0);
+                out.writeInt((int) v[2]);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 4) {
+            System.out.println("Ús: OpeningBookBuilder <n> <jugades> <profunditat> <fitxer> [fils]");
+            return;
+        }
+        int n = Integer.parseInt(args[0]);
+        int plies = Integer.parseInt(args[1]);
+        int depth = Integer.parseInt(args[2]);
+        Path file = Paths.get(args[3]);
+        int threads = args.length > 4 ? Integer.parseInt(args[4]) : 1;
+
+        OpeningBookBuilder builder = new OpeningBookBuilder(n, depth, threads);
+        builder.build(plies);
+        builder.write(file);
+        System.out.println(builder.entries.size() + " entrades escrites a " + file);
+    }
+}
@@ -0,0 +1,413 @@
+package edu.upc.epsevg.prop.oust.players.OrtizSerralta;
+
+import edu.upc.epsevg.prop.oust.MyStatus;
+import edu.upc.epsevg.prop.oust.PlayerType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Cerca alfa-beta de profunditat fixa repartida entre fils (Young Brothers Wait).
+ * <p>
+ * A cada node amb prou profunditat restant es cerca primer el fill gran (el primer
+ * segons l'ordenació) al mateix fil. Si no provoca poda, la resta de germans es
+ * reparteixen com a tasques d'un {@link ForkJoinPool}. Els germans comparteixen les
+ * cotes del node pare: cada tasca llegeix les cotes actuals quan comença, i quan un
+ * germà provoca la poda el node es marca com a avortat perquè la resta pleguin.
+ * </p>
+ * <p>
+ * Els nodes amb poca profunditat restant es cerquen amb el {@link PlayerMiniMax#minimax}
+ * seqüencial. Cada fil del pool té el seu propi {@link Engine} (killers, història i
+ * comptadors propis) i tots comparteixen la Taula de Transposició i la memòria cau de
+ * l'avaluació.
+ * </p>
+ * @author OrtizSerralta
+ */
+class ParallelSearch {
+
+    /** Profunditat restant mínima per repartir els germans entre fils (en unitats de ply). */
+    static final int MIN_SPLIT_DEPTH = 3 * PlayerMiniMax.ONE_PLY;
+
+    private final PlayerMiniMax owner;
+    private final TranspositionTable tt;
+    private final int fixedDepth;
+    private final ForkJoinPool pool;
+    private final List<Engine> engines = new ArrayList<>();
+    private final ThreadLocal<Engine> local = ThreadLocal.withInitial(this::newEngine);
+
+    // Estat de la cerca en curs: s'escriu abans d'invocar el pool
+    private MyStatus root;
+    private int searchId;
+
+    /**
+     * @param owner Jugador que fa la cerca (se'n copien els interruptors de cerca).
+     * @param tt Taula de Transposició compartida.
+     * @param fixedDepth Profunditat de la cerca.
+     * @param threads Nombre de fils del pool.
+     */
+    ParallelSearch(PlayerMiniMax owner, TranspositionTable tt, int fixedDepth, int threads) {
+        this.owner = owner;
+        this.tt = tt;
+        this.fixedDepth = fixedDepth;
+        this.pool = new ForkJoinPool(threads);
+    }
+
+    /**
+     * Cerca la posició amb finestra completa.
+     * @param s Estat arrel (no es modifica).
+     * @param depth Profunditat de la cerca (en fraccions de ply, vegeu {@link PlayerMiniMax#ONE_PLY}).
+     * @return Puntuació i seqüència del millor moviment.
+     */
+    PlayerMiniMax.Result search(MyStatus s, int depth) {
+        root = new MyStatus(s);
+        searchId++;
+        RootTask task = new RootTask(new MyStatus(s), depth);
+        pool.invoke(task);
+        return task.result;
+    }
+
+    /**
+     * Atura els fils del pool i deixa anar els motors: cada fil en guarda un al seu
+     * {@link ThreadLocal}, i amb ell la TT i la memòria cau compartides. Després no es
+     * pot tornar a cercar.
+     */
+    void close() {
+        pool.shutdown();
+        local.remove();
+        synchronized (engines) {
+            engines.clear();
+        }
+    }
+
+    /** @return Nodes explorats per cada fil en la darrera cerca. */
+    long[] getWorkerNodes() {
+        synchronized (engines) {
+            return engines.stream().filter(e -> e.searchId == searchId).mapToLong(e -> e.nodes()).toArray();
+        }
+    }
+
+    /** @return Nodes explorats entre tots els fils en la darrera cerca. */
+    long getTotalNodes() {
+        long total = 0;
+        for (long n : getWorkerNodes()) total += n;
+        return total;
+    }
+
+    /** @return Consultes a la TT entre tots els fils en la darrera cerca. */
+    long getTTProbes() {
+        synchronized (engines) {
+            return engines.stream().filter(e -> e.searchId == searchId).mapToLong(PlayerMiniMax::getTTProbes).sum();
+        }
+    }
+
+    /** @return Encerts de la TT entre tots els fils en la darrera cerca. */
+    long getTTHits() {
+        synchronized (engines) {
+            return engines.stream().filter(e -> e.searchId == searchId).mapToLong(PlayerMiniMax::getTTHits).sum();
+        }
+    }
+
+    /** @return Podes per la TT entre tots els fils en la darrera cerca. */
+    long getTTCutoffs() {
+        synchronized (engines) {
+            return engines.stream().filter(e -> e.searchId == searchId).mapToLong(PlayerMiniMax::getTTCutoffs).sum();
+        }
+    }
+
+    /** @return Nodes de quiescència entre tots els fils en la darrera cerca. */
+    long getQuiescenceNodes() {
+        synchronized (engines) {
+            return engines.stream().filter(e -> e.searchId == searchId).mapToLong(PlayerMiniMax::getQuiescenceNodes).sum();
+        }
+    }
+
+    /** @return Avaluacions trobades a la memòria cau entre tots els fils en la darrera cerca. */
+    long getEvalCacheHits() {
+        synchronized (engines) {
+            return engines.stream().filter(e -> e.searchId == searchId).mapToLong(PlayerMiniMax::getEvalCacheHits).sum();
+        }
+    }
+
+    /** @return Avaluacions calculades entre tots els fils en la darrera cerca. */
+    long getEvalCacheMisses() {
+        synchronized (engines) {
+            return engines.stream().filter(e -> e.searchId == searchId).mapToLong(PlayerMiniMax::getEvalCacheMisses).sum();
+        }
+    }
+
+    private Engine newEngine() {
+        Engine e = new Engine(tt, fixedDepth);
+        synchronized (engines) {
+            engines.add(e);
+        }
+        return e;
+    }
+
+    /**
+     * @return Motor del fil actual, preparat per a la cerca en curs.
+     */
+    private Engine engine() {
+        Engine e = local.get();
+        if (e.searchId != searchId) {
+            e.copySearchSettings(owner);
+            e.prepare(root, searchId);
+        }
+        return e;
+    }
+
+    /**
+     * Cerca un node al fil actual. Si la profunditat és prou gran, reparteix els germans.
+     * @param s Estat del node (es fa i desfà sobre ell; queda igual en acabar).
+     * @param depth Profunditat restant (en fraccions de ply).
+     * @param alpha Cota inferior.
+     * @param beta Cota superior.
+     * @param ply Distància a l'arrel.
+     * @param parent Node de repartiment més proper per sobre (null a l'arrel).
+     * @return Resultat del node (sense sentit si {@code parent} ha estat avortat).
+     */
+    private PlayerMiniMax.Result ybw(MyStatus s, int depth, int alpha, int beta, int ply, SplitNode parent) {
+        Engine e = engine();
+        if (depth < MIN_SPLIT_DEPTH) return e.searchUnder(parent, s, depth, alpha, beta, ply);
+        if (parent != null && parent.isAborted()) return new PlayerMiniMax.Result(0, null);
+
+        e.nodesExplored++;
+
+        // --- 1. Consulta a la TT (mateixes regles que la cerca seqüencial) ---
+        long key = e.ttKey(s);
+        long entry = tt.probe(key);
+        int ttMove = TranspositionTable.NO_MOVE;
+        e.ttProbes++;
+        if (TranspositionTable.isValid(entry)) {
+            e.ttHits++;
+            ttMove = TranspositionTable.move(entry);
+            if (ply > 0 && e.ttDepthUsable(TranspositionTable.depth(entry), depth)) {
+                int ttScore = PlayerMiniMax.scoreFromTT(TranspositionTable.score(entry), ply);
+                int ttFlag = TranspositionTable.flag(entry);
+                if (ttFlag == PlayerMiniMax.FLAG_EXACT) {
+                    e.ttCutoffs++;
+                    return new PlayerMiniMax.Result(ttScore, null);
+                }
+                if (ttFlag == PlayerMiniMax.FLAG_LOWERBOUND) alpha = Math.max(alpha, ttScore);
+                if (ttFlag == PlayerMiniMax.FLAG_UPPERBOUND) beta = Math.min(beta, ttScore);
+                if (alpha >= beta) {
+                    e.ttCutoffs++;
+                    return new PlayerMiniMax.Result(ttScore, null);
+                }
+            }
+        }
+
+        // --- 2. Casos base ---
+        if (s.isGameOver()) {
+            int win = PlayerMiniMax.WIN_SCORE;
+            return new PlayerMiniMax.Result(s.GetWinner() == e.rootPlayer ? win - ply : -win + ply, null);
+        }
+        // Llista pròpia del node: el fil pot ajudar en altres subarbres mentre espera els germans
+        MovePicker moves = new MovePicker();
+        int n = moves.generate(s);
+        if (n == 0) return new PlayerMiniMax.Result(e.heuristic(s), null);
+
+        e.orderMoves(moves, ttMove, ply);
+
+        PlayerType mover = s.getCurrentPlayer();
+        SplitNode node = new SplitNode(parent, mover == e.rootPlayer, alpha, beta, depth, ply);
+
+        // --- 3. Fill gran, al mateix fil ---
+        int first = moves.next(0);
+        s.makeMove(first);
+        boolean firstSameTurn = (s.getCurrentPlayer() == mover);
+        int nextDepth = firstSameTurn ? e.chainDepth(depth, s) : depth - PlayerMiniMax.ONE_PLY;
+        PlayerMiniMax.Result r = ybw(s, nextDepth, alpha, beta, ply + 1, node);
+        s.unmakeMove();
+        node.merge(e, first, firstSameTurn, r);
+
+        // --- 4. Germans petits, en paral·lel ---
+        if (!node.isAborted() && n > 1) {
+            List<SiblingTask> tasks = new ArrayList<>();
+            for (int k = 1; k < n; k++) {
+                MyStatus child = new MyStatus(s);
+                int move = moves.next(k);
+                child.makeMove(move);
+                tasks.add(new SiblingTask(node, child, move, child.getCurrentPlayer() == mover));
+            }
+            ForkJoinTask.invokeAll(tasks);
+        }
+
+        // --- 5. Emmagatzematge a la TT (si cap avantpassat no ha avortat) ---
+        int bestVal = node.bestValue();
+        int[] bestSeq = node.bestSequence();
+        if (parent == null || !parent.isAborted()) {
+            int flag;
+            if (bestVal <= alpha) flag = PlayerMiniMax.FLAG_UPPERBOUND;
+            else if (bestVal >= node.beta()) flag = PlayerMiniMax.FLAG_LOWERBOUND;
+            else flag = PlayerMiniMax.FLAG_EXACT;
+            int bestMove = (bestSeq != null) ? bestSeq[0] : TranspositionTable.NO_MOVE;
+            tt.store(key, PlayerMiniMax.scoreToTT(bestVal, ply), depth, flag, bestMove);
+        }
+        return new PlayerMiniMax.Result(bestVal, bestSeq);
+    }
+
+    /**
+     * Node on s'han repartit els germans: cotes compartides i senyal d'avortament.
+     */
+    private static final class SplitNode {
+        final SplitNode parent;
+        final boolean isMax;
+        final int depth;
+        final int ply;
+        private int alpha;
+        private int beta;
+        private int bestVal;
+        private int[] bestSeq;
+        private volatile boolean aborted;
+
+        SplitNode(SplitNode parent, boolean isMax, int alpha, int beta, int depth, int ply) {
+            this.parent = parent;
+            this.isMax = isMax;
+            this.alpha = alpha;
+            this.beta = beta;
+            this.depth = depth;
+            this.ply = ply;
+            this.bestVal = isMax ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+        }
+
+        /** @return Cert si aquest node o algun avantpassat ja no necessita resultats. */
+        boolean isAborted() {
+            for (SplitNode n = this; n != null; n = n.parent) {
+                if (n.aborted) return true;
+            }
+            return false;
+        }
+
+        synchronized int alpha() { return alpha; }
+        synchronized int beta() { return beta; }
+        synchronized int bestValue() { return bestVal; }
+        synchronized int[] bestSequence() { return bestSeq; }
+
+        /**
+         * Incorpora el resultat d'un fill. Després d'una poda la resta de resultats s'ignoren.
+         */
+        synchronized void merge(PlayerMiniMax e, int move, boolean sameTurn, PlayerMiniMax.Result r) {
+            if (aborted) return;
+            if (isMax ? r.score > bestVal : r.score < bestVal) {
+                bestVal = r.score;
+                bestSeq = PlayerMiniMax.line(move, sameTurn ? r.sequence : null);
+            }
+            if (isMax) alpha = Math.max(alpha, bestVal);
+            else beta = Math.min(beta, bestVal);
+            if (beta <= alpha) {
+                aborted = true;
+                if (!sameTurn) {
+                    e.storeKiller(ply, move);
+                    e.updateHistory(move, depth / PlayerMiniMax.ONE_PLY);
+                }
+            }
+        }
+    }
+
+    /**
+     * Cerca d'un germà petit sobre la seva pròpia còpia de l'estat.
+     */
+    private final class SiblingTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final SplitNode node;
+        private final MyStatus child;
+        private final int move;
+        private final boolean sameTurn;
+
+        SiblingTask(SplitNode node, MyStatus child, int move, boolean sameTurn) {
+            this.node = node;
+            this.child = child;
+            this.move = move;
+            this.sameTurn = sameTurn;
+        }
+
+        @Override
+        protected void compute() {
+            if (node.isAborted()) return;
+            // Cotes actuals del pare: poden haver millorat des que es va crear la tasca
+            int alpha = node.alpha();
+            int beta = node.beta();
+            int ply = node.ply + 1;
+            PlayerMiniMax.Result r;
+            if (sameTurn) {
+                r = ybw(child, engine().chainDepth(node.depth, child), alpha, beta, ply, node);
+            } else {
+                // Finestra nul·la i re-cerca, igual que a la cerca seqüencial
+                int depth = node.depth - PlayerMiniMax.ONE_PLY;
+                r = ybw(child, depth, alpha, alpha + 1, ply, node);
+                if (r.score > alpha && r.score < beta && !node.isAborted()) {
+                    r = ybw(child, depth, alpha, beta, ply, node);
+                }
+            }
+            // Si en algun moment s'ha avortat, el resultat pot ser incomplet
+            if (node.isAborted()) return;
+            node.merge(engine(), move, sameTurn, r);
+        }
+    }
+
+    /**
+     * Tasca arrel: executa la cerca dins del pool.
+     */
+    private final class RootTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final MyStatus s;
+        private final int depth;
+        PlayerMiniMax.Result result;
+
+        RootTask(MyStatus s, int depth) {
+            this.s = s;
+            this.depth = depth;
+        }
+
+        @Override
+        protected void compute() {
+            result = ybw(s, depth, Integer.MIN_VALUE, Integer.MAX_VALUE, 0, null);
+        }
+    }
+
+    /**
+     * Motor de cerca d'un fil del pool: killers, història i comptadors propis,
+     * Taula de Transposició compartida.
+     */
+    static final class Engine extends PlayerMiniMax {
+
+        private int searchId = -1;
+        private SplitNode node;
+
+        Engine(TranspositionTable sharedTT, int fixedDepth) {
+            super(sharedTT);
+            this.fixedDepth = fixedDepth;
+        }
+
+        void prepare(MyStatus root, int id) {
+            initStructures(root);
+            nodesExplored = 0;
+            searchId = id;
+        }
+
+        long nodes() { return nodesExplored; }
+
+        /**
+         * Cerca seqüencial d'un subarbre que penja del node de repartiment indicat. La
+         * variació es copia tot just acabar: el fil pot tornar a fer servir el mateix ply
+         * en un altre subarbre abans que el node de repartiment la llegeixi.
+         */
+        PlayerMiniMax.Result searchUnder(SplitNode parent, MyStatus s, int depth, int alpha, int beta, int ply) {
+            SplitNode prev = node;
+            node = parent;
+            try {
+                int score = minimax(s, depth, alpha, beta, ply, true);
+                return new PlayerMiniMax.Result(score, pvLine(ply));
+            } finally {
+                node = prev;
+            }
+        }
+
+        @Override
+        protected boolean stopRequested() {
+            return node != null && node.isAborted();
+        }
+    }
+}
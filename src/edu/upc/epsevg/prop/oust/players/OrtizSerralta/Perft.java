@@ -0,0 +1,297 @@
+package edu.upc.epsevg.prop.oust.players.OrtizSerralta;
+
+import edu.upc.epsevg.prop.oust.GameStatus;
+import edu.upc.epsevg.prop.oust.MyStatus;
+import edu.upc.epsevg.prop.oust.PlayerType;
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Eina de perft per a Oust: compta tots els torns complets legals fins a una
+ * profunditat donada.
+ * <p>
+ * Un torn és una cadena de col·locacions del mateix jugador que acaba quan el torn
+ * passa al rival o s'acaba la partida (el mateix criteri que validen
+ * {@code HeadlessGame} i {@code Board}). La profunditat es compta en torns, i per a
+ * cada nivell es dona el nombre de seqüències de torns diferents (camins, sense
+ * fusionar transposicions) juntament amb el total de col·locacions fetes.
+ * </p>
+ * <p>
+ * Es pot executar sobre {@link MyStatus} (fer/desfer) o sobre {@link GameStatus}
+ * (còpia per jugada), i comparar-ne els recomptes: serveix d'oracle de correcció per
+ * a qualsevol representació del tauler i de benchmark de generació de jugades. Les
+ * jugades de l'arrel es poden repartir entre fils.
+ * </p>
+ * <pre>
+ * java ... Perft &lt;n&gt; &lt;profunditat&gt; [fils] [jugades inicials] [llavor] [my|lib|check]
+ * </pre>
+ * @author OrtizSerralta
+ */
+public class Perft {
+
+    /**
+     * Resultat d'un perft.
+     */
+    public static class Result {
+        /** Torns complets per nivell: {@code turns[d]} és el recompte a profunditat d + 1. */
+        public final long[] turns;
+        /** Col·locacions individuals fetes durant el recorregut. */
+        public long placements;
+        /** Temps de rellotge en nanosegons. */
+        public long nanos;
+
+        Result(int depth) {
+            turns = new long[depth];
+        }
+
+        void add(Result r) {
+            for (int i = 0; i < turns.length; i++) turns[i] += r.turns[i];
+            placements += r.placements;
+        }
+
+        /** @return Col·locacions per segon. */
+        public double placementsPerSecond() {
+            return nanos == 0 ? 0 : placements * 1e9 / nanos;
+        }
+    }
+
+    private Perft() {
+    }
+
+    /**
+     * Perft sobre {@link MyStatus}.
+     * @param root Posició inicial (no es modifica).
+     * @param depth Profunditat en torns (mínim 1).
+     * @param threads Fils entre els quals es reparteixen les jugades de l'arrel.
+     * @return Recomptes per nivell.
+     */
+    public static Result perft(MyStatus root, int depth, int threads) {
+        long start = System.nanoTime();
+        int[] buf = new int[root.getCellCount()];
+        int n = root.generateMoves(buf);
+        List<Callable<Result>> tasks = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            int move = buf[i];
+            tasks.add(() -> {
+                MyStatus s = new MyStatus(root);
+                PlayerType mover = s.getCurrentPlayer();
+                MyWalker w = new MyWalker(s, depth);
+                s.makeMove(move);
+                w.afterMove(mover, 0, 0);
+                return w.result;
+            });
+        }
+        Result total = runAll(tasks, depth, threads);
+        total.nanos = System.nanoTime() - start;
+        return total;
+    }
+
+    /**
+     * Perft sobre {@link GameStatus} de la llibreria (referència).
+     * @param root Posició inicial (no es modifica).
+     * @param depth Profunditat en torns (mínim 1).
+     * @param threads Fils entre els quals es reparteixen les jugades de l'arrel.
+     * @return Recomptes per nivell.
+     */
+    public static Result perft(GameStatus root, int depth, int threads) {
+        long start = System.nanoTime();
+        List<Callable<Result>> tasks = new ArrayList<>();
+        for (Point move : root.getMoves()) {
+            tasks.add(() -> {
+                LibWalker w = new LibWalker(depth);
+                GameStatus s = new GameStatus(root);
+                PlayerType mover = s.getCurrentPlayer();
+                s.placeStone(move);
+                w.afterMove(s, mover, 0);
+                return w.result;
+            });
+        }
+        Result total = runAll(tasks, depth, threads);
+        total.nanos = System.nanoTime() - start;
+        return total;
+    }
+
+    private static Result runAll(List<Callable<Result>> tasks, int depth, int threads) {
+        Result total = new Result(depth);
+        if (threads <= 1) {
+            for (Callable<Result> t : tasks) {
+                try {
+                    total.add(t.call());
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            return total;
+        }
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            for (Future<Result> f : pool.invokeAll(tasks)) total.add(f.get());
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        } finally {
+            pool.shutdown();
+        }
+        return total;
+    }
+
+    /**
+     * Recorregut amb fer/desfer sobre un únic {@link MyStatus}.
+     */
+    private static final class MyWalker {
+        final MyStatus s;
+        final int depth;
+        final Result result;
+        int[][] bufs = new int[64][];
+
+        MyWalker(MyStatus s, int depth) {
+            this.s = s;
+            this.depth = depth;
+            this.result = new Result(depth);
+        }
+
+        /** Explora les jugades del jugador actual, que continua (o comença) el torn del nivell indicat. */
+        void turn(int level, int ply) {
+            if (ply == bufs.length) bufs = Arrays.copyOf(bufs, ply * 2);
+            if (bufs[ply] == null) bufs[ply] = new int[s.getCellCount()];
+            int[] buf = bufs[ply];
+            PlayerType mover = s.getCurrentPlayer();
+            int n = s.generateMoves(buf);
+            for (int i = 0; i < n; i++) {
+                s.makeMove(buf[i]);
+                afterMove(mover, level, ply);
+                s.unmakeMove();
+            }
+        }
+
+        void afterMove(PlayerType mover, int level, int ply) {
+            result.placements++;
+            if (s.isGameOver() || s.getCurrentPlayer() != mover) {
+                result.turns[level]++;
+                if (level + 1 < depth && !s.isGameOver()) turn(level + 1, ply + 1);
+            } else {
+                turn(level, ply + 1);
+            }
+        }
+    }
+
+    /**
+     * Recorregut de referència amb còpies de {@link GameStatus}.
+     */
+    private static final class LibWalker {
+        final int depth;
+        final Result result;
+
+        LibWalker(int depth) {
+            this.depth = depth;
+            this.result = new Result(depth);
+        }
+
+        void turn(GameStatus s, int level) {
+            PlayerType mover = s.getCurrentPlayer();
+            for (Point p : s.getMoves()) {
+                GameStatus next = new GameStatus(s);
+                next.placeStone(p);
+                afterMove(next, mover, level);
+            }
+        }
+
+        void afterMove(GameStatus s, PlayerType mover, int level) {
+            result.placements++;
+            if (s.isGameOver() || s.getCurrentPlayer() != mover) {
+                result.turns[level]++;
+                if (level + 1 < depth && !s.isGameOver()) turn(s, level + 1);
+            } else {
+                turn(s, level);
+            }
+        }
+    }
+
+    /**
+     * Posició de partida: tauler buit i un nombre de jugades aleatòries reproduïbles.
+     * @param n Mida del costat de l'hexàgon.
+     * @param plies Jugades a fer des del tauler buit.
+     * @param seed Llavor del generador aleatori.
+     * @return Posició resultant (la darrera no acabada).
+     */
+    public static GameStatus position(int n, int plies, long seed) {
+        Random rnd = new Random(seed);
+        GameStatus gs = new GameStatus(n);
+        for (int i = 0; i < plies; i++) {
+            List<Point> moves = gs.getMoves();
+            if (moves.isEmpty()) break;
+            GameStatus next = new GameStatus(gs);
+            next.placeStone(moves.get(rnd.nextInt(moves.size())));
+            if (next.isGameOver()) break;
+            gs = next;
+        }
+        return gs;
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.out.println("Ús: Perft <n> <profunditat> [fils] [jugades inicials] [llavor] [my|lib|check]");
+            return;
+        }
+        int n = Integer.parseInt(args[0]);
+        int depth = Integer.parseInt(args[1]);
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+        int plies = args.length > 3 ? Integer.parseInt(args[3]) : 0;
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : 1;
+        String mode = args.length > 5 ? args[5] : "my";
+
+        GameStatus gs = position(n, plies, seed);
+        System.out.println(gs);
+
+        // Sense jugades inicials es parteix del constructor de tauler buit
+        MyStatus mine = plies == 0 ? new MyStatus(n) : new MyStatus(gs);
+        Result my = null, lib = null;
+        if (!mode.equals("lib")) {
+            my = perft(mine, depth, threads);
+            print("MyStatus", my);
+        }
+        if (!mode.equals("my")) {
+            lib = perft(gs, depth, threads);
+            print("GameStatus", lib);
+        }
+        if (my != null && lib != null) {
+            boolean ok = sameMoves(mine, gs)
+                    && Arrays.equals(my.turns, lib.turns) && my.placements == lib.placements;
+            System.out.println(ok ? "OK: els recomptes coincideixen" : "ERROR: els recomptes no coincideixen");
+            if (!ok) System.exit(1);
+        }
+    }
+
+    /**
+     * Compara les jugades de l'arrel amb les de la llibreria: llista, recompte i
+     * existència de jugades.
+     * @param s Estat de bitboards.
+     * @param gs Mateixa posició en format de la llibreria.
+     * @return Cert si coincideixen.
+     */
+    static boolean sameMoves(MyStatus s, GameStatus gs) {
+        List<Point> expected = gs.getMoves();
+        List<Point> moves = s.getMoves();
+        boolean ok = moves.size() == expected.size() && moves.containsAll(expected)
+                && s.countMoves() == expected.size() && s.hasAnyMove() == !expected.isEmpty();
+        if (!ok) {
+            System.out.println("ERROR: jugades de l'arrel " + moves.size() + " (MyStatus) i "
+                    + expected.size() + " (GameStatus)");
+        }
+        return ok;
+    }
+
+    private static void print(String name, Result r) {
+        System.out.println(name + ":");
+        for (int d = 0; d < r.turns.length; d++) {
+            System.out.printf("  perft(%d) = %d%n", d + 1, r.turns[d]);
+        }
+        System.out.printf("  jugades = %d, temps = %.3f s, %.0f jugades/s%n",
+                r.placements, r.nanos / 1e9, r.placementsPerSecond());
+    }
+}
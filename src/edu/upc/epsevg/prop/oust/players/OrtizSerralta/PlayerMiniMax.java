@@ -3,12 +3,13 @@ package edu.upc.epsevg.prop.oust.players.OrtizSerralta;
 import edu.upc.epsevg.prop.oust.GameStatus;
 import edu.upc.epsevg.prop.oust.IAuto;
 import edu.upc.epsevg.prop.oust.IPlayer;
+import edu.upc.epsevg.prop.oust.MyStatus;
 import edu.upc.epsevg.prop.oust.PlayerMove;
 import edu.upc.epsevg.prop.oust.PlayerType;
 import edu.upc.epsevg.prop.oust.SearchType;
 import java.awt.Point;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -21,17 +22,64 @@ import java.util.List;
  * </p>
  * <p>
  * L'avaluació de l'estat es basa en la formació de grups de fitxes (connectivitat)
- * i la mobilitat disponible.
+ * i la mobilitat disponible. La fa un {@link Evaluator} intercanviable, que es pot
+ * triar per mida de tauler ({@link #setEvaluator(int, Evaluator)}).
+ * </p>
+ * <p>
+ * La cerca treballa sobre {@link MyStatus} (bitboards) en lloc de {@link GameStatus}:
+ * generar jugades és molt més barat que amb la llibreria i l'arbre es recorre fent i
+ * desfent jugades sobre un únic estat, sense copiar-lo a cada node.
+ * </p>
+ * <p>
+ * La profunditat es compta internament en fraccions de ply ({@link #ONE_PLY}). Una
+ * captura que manté el torn costa només una fracció ({@link #setChainExtension(int, int)}),
+ * fins a un màxim de captures per torn; a partir d'aquí cada captura costa un ply
+ * sencer. Així una cadena llarga allarga la cerca de manera controlada en lloc de fer-la
+ * explotar.
+ * </p>
+ * <p>
+ * A l'horitzó no s'avalua directament: si el jugador que mou té captures pendents es
+ * continua amb una cerca de quiescència que només prova captures
+ * ({@link #quiesce(MyStatus, int, int, int, int)}), de manera que les fulles s'avaluen
+ * en posicions tranquil·les.
+ * </p>
+ * <p>
+ * Sobre la PVS hi ha una capa de cerca selectiva ({@link #setSelectiveSearch(boolean, boolean)}):
+ * poda per jugada nul·la, amb la cerca reduïda passant el torn al rival, i reducció de
+ * les jugades tardanes que l'ordenació posa al final; si una jugada reduïda supera la
+ * finestra es torna a cercar a profunditat completa.
+ * </p>
+ * <p>
+ * Opcionalment els fills de cada node poden ser torns complets ({@link TurnGenerator}):
+ * les cadenes de captura que porten a la mateixa posició es cerquen una sola vegada.
+ * Generar tots els torns d'un node costa molt en posicions amb moltes captures, de
+ * manera que la generació té un pressupost i, si s'esgota, el node es cerca per
+ * col·locacions soltes.
  * </p>
  * * @author OrtizSerralta
  */
 public class PlayerMiniMax implements IPlayer, IAuto {
 
     protected String name = "OrtizSerralta Fixed";
+
+    /**
+     * Cancel·lació de la cerca: l'activa {@link #timeout()} (des del fil del watchdog)
+     * o el termini propi del motor.
+     */
+    protected final CancellationToken cancellation = new CancellationToken();
+    /**
+     * Còpia local de la cancel·lació. Només l'escriu el fil de cerca, quan consulta
+     * {@link #cancellation} (cada {@link #POLL_INTERVAL} nodes).
+     */
     protected boolean timedOut;
+    /** Nodes entre consultes al token de cancel·lació (potència de 2). */
+    protected static final int POLL_INTERVAL = 1024;
+    /** Latència d'aturada de l'últim moviment en nanosegons (-1 si no s'ha cancel·lat). */
+    protected long lastStopLatencyNanos = -1;
+    /** Latència d'aturada màxima observada. */
+    protected long maxStopLatencyNanos;
     protected long nodesExplored;
     protected PlayerType rootPlayer;
-    protected int maxBoardDim;
     
     /**
      * Profunditat fixa de cerca. Si és -1, indica que s'està utilitzant
@@ -40,39 +88,160 @@ public class PlayerMiniMax implements IPlayer, IAuto {
     protected int fixedDepth = -1;
 
     // --- Taula de Transposició (TT) ---
-    private static final int TT_SIZE = 1 << 20; // Aproximadament 1 milió d'entrades
-    
+    /** Mida per defecte de la Taula de Transposició en MB (1M entrades). */
+    public static final int DEFAULT_TT_SIZE_MB = 32;
+
     /**
-     * Taula de Transposició estàtica per compartir coneixement entre torns.
+     * Taula de Transposició del jugador, es conserva entre torns.
+     * Cada moviment n'incrementa la generació per envellir les entrades anteriors.
      */
-    protected static final TTEntry[] tt = new TTEntry[TT_SIZE];
+    protected final TranspositionTable tt;
+
+    /**
+     * Clau que es combina amb la Zobrist segons el jugador arrel: les puntuacions
+     * són relatives a {@link #rootPlayer} i una mateixa instància pot jugar amb tots dos colors.
+     */
+    private static final long ROOT_PLAYER2_KEY = 0x9E3779B97F4A7C15L;
+
+    // --- Estadístiques de la TT (es reinicien a cada moviment) ---
+    protected long ttProbes;
+    protected long ttHits;
+    protected long ttCutoffs;
+
+    // --- Memòria cau de l'avaluació ---
+    /** Mida per defecte de la memòria cau de l'avaluació en MB (256K entrades). */
+    public static final int DEFAULT_EVAL_CACHE_MB = 4;
+    /**
+     * Avaluacions guardades per clau de posició (null si està desactivada). Els motors
+     * auxiliars no en creen cap: reben la del jugador a {@link #copySearchSettings}.
+     */
+    protected EvalCache evalCache;
+    protected long evalHits;
+    protected long evalMisses;
+
+    // --- Avaluador ---
+    /** Avaluador de les mides de tauler que no en tenen cap de propi. */
+    private Evaluator defaultEvaluator = WeightedEvaluator.STANDARD;
+    /** Avaluadors per mida del costat (null si la mida fa servir el per defecte). */
+    private Evaluator[] sizeEvaluators = new Evaluator[0];
+    /** Avaluador del moviment en curs, triat per la mida a {@link #initStructures(MyStatus)}. */
+    protected Evaluator evaluator = defaultEvaluator;
 
     protected static final int FLAG_EXACT = 0;
     protected static final int FLAG_LOWERBOUND = 1;
     protected static final int FLAG_UPPERBOUND = 2;
 
+    /** Puntuació d'una victòria a l'arrel (es resta la distància en plies). */
+    protected static final int WIN_SCORE = 1000000;
+    /** Qualsevol puntuació per sobre d'aquest valor (en valor absolut) és una victòria o derrota. */
+    protected static final int WIN_THRESHOLD = 900000;
+
+    // --- Cerca paral·lela ---
+    /** Nombre de fils de cerca (1 per a la cerca seqüencial). */
+    protected int threads = 1;
+    private ParallelSearch parallel;
+    protected long[] workerNodes = new long[0];
+    protected long lastSearchNanos;
+    protected int lastScore;
+
+    // --- Macro-jugades ---
+    /** Cert per cercar torns complets en lloc de col·locacions soltes (vegeu {@link TurnGenerator}). */
+    protected boolean macroMoves = false;
+    /** Generadors de torns per ply (creats quan es necessiten). */
+    protected TurnGenerator[] turnGenerators = new TurnGenerator[64];
+    protected long macroTurns;
+    protected long macroDuplicates;
+
+    // --- Extensió de les cadenes de captura ---
+    /** Unitats de profunditat d'un ply. */
+    public static final int ONE_PLY = 4;
+    /** Cost per defecte d'una captura que manté el torn (mig ply). */
+    public static final int DEFAULT_CHAIN_COST = 2;
+    /** Captures per torn per defecte que es cobren amb el cost reduït. */
+    public static final int DEFAULT_MAX_CHAIN = 3;
+    /** Captures que pot jugar per defecte el generador de torns en un node. */
+    public static final int DEFAULT_TURN_BUDGET = 256;
+    protected int chainCost = DEFAULT_CHAIN_COST;
+    protected int maxChain = DEFAULT_MAX_CHAIN;
+    protected int turnBudget = DEFAULT_TURN_BUDGET;
+    protected long macroFallbacks;
+
+    // --- Cerca de quiescència ---
+    /** Captures seguides que pot encadenar per defecte la quiescència. */
+    public static final int DEFAULT_QS_MAX_CAPTURES = 2;
     /**
-     * Estructura per emmagatzemar informació d'un estat a la Taula de Transposició.
+     * Marge de la poda delta: guany màxim que s'espera d'una captura. Si ni amb aquest
+     * guany el jugador que mou arriba a la finestra, no es proven les captures.
      */
-    protected static class TTEntry {
-        long key;                 // Clau Zobrist per identificar l'estat únic
-        int score;                // Puntuació emmagatzemada
-        int depth;                // Profunditat a la qual es va trobar aquesta puntuació
-        int flag;                 // Tipus de cota (Exacta, Alpha o Beta)
-        List<Point> bestSequence; // Millor seqüència de moviments des d'aquest estat
-    }
+    public static final int DEFAULT_QS_DELTA = 400;
+    protected boolean quiescence = true;
+    protected int qsMaxCaptures = DEFAULT_QS_MAX_CAPTURES;
+    protected int qsDelta = DEFAULT_QS_DELTA;
+    protected int[][] qsBufs = new int[16][];
+    protected long qsNodes;
+
+    // --- Cerca selectiva ---
+    /** Reducció de la cerca de la jugada nul·la, a més del ply de la jugada. */
+    public static final int NULL_REDUCTION = 2 * ONE_PLY;
+    /** Profunditat mínima per provar la jugada nul·la. */
+    public static final int NULL_MIN_DEPTH = 3 * ONE_PLY;
+    /** Fitxes mínimes de cada jugador per provar la jugada nul·la (fora d'aquí, final de partida). */
+    public static final int NULL_MIN_STONES = 4;
+    /** Jugades de cada node que es cerquen sempre a profunditat completa. */
+    public static final int LMR_FULL_MOVES = 3;
+    /** Profunditat mínima per reduir les jugades tardanes. */
+    public static final int LMR_MIN_DEPTH = 3 * ONE_PLY;
+    protected boolean nullMove = true;
+    protected boolean lateMoveReductions = true;
+    protected long nullCutoffs;
+    protected long lmrReductions;
+    protected long lmrResearches;
 
     // --- Estructures Auxiliars ---
-    protected Point[][] killerMoves;       // Moviments que han provocat podes (Killer Heuristic)
-    protected int[][] historyHeuristic;    // Taula d'història per ordenar moviments segons èxit previ
-    protected boolean[][] visitedBuffer;   // Buffer per evitar re-assignació de memòria en l'heurística
+    protected int[][] killerMoves;         // Moviments que han provocat podes (Killer Heuristic), per ply
+    protected int[] historyHeuristic;      // Taula d'història per casella (índex de bit)
+    protected MovePicker[] movePickers = new MovePicker[64];   // Llistes de jugades per ply
+
+    // --- Variació principal (taula triangular per ply) ---
+    /** {@code pvTable[ply]}: jugades del torn a partir del node del ply (vegeu {@link #pvLine(int)}). */
+    protected int[][] pvTable = new int[64][];
+    /** Jugades vàlides de cada fila de {@link #pvTable}. */
+    protected int[] pvLength = new int[64];
 
     /**
      * Constructor que estableix una profunditat màxima fixa.
      * * @param profunditatMaxima La profunditat límit per a la cerca Minimax.
      */
     public PlayerMiniMax(int profunditatMaxima) {
+        this(profunditatMaxima, DEFAULT_TT_SIZE_MB);
+    }
+
+    /**
+     * Constructor amb profunditat fixa i mida de la Taula de Transposició.
+     * * @param profunditatMaxima La profunditat límit per a la cerca Minimax (-1 per al mode IDS).
+     * @param ttSizeMB Memòria de la Taula de Transposició en MB.
+     */
+    public PlayerMiniMax(int profunditatMaxima, int ttSizeMB) {
         this.fixedDepth = profunditatMaxima;
+        this.tt = new TranspositionTable(ttSizeMB);
+        this.evalCache = new EvalCache(DEFAULT_EVAL_CACHE_MB);
+    }
+
+    /**
+     * Constructor per a la cerca de profunditat fixa en paral·lel.
+     * <p>
+     * Amb més d'un fil, la cerca es reparteix amb un {@link java.util.concurrent.ForkJoinPool}
+     * seguint l'esquema Young Brothers Wait: a cada node es cerca primer el fill gran i
+     * després els germans en paral·lel. La puntuació retornada és la mateixa que la de
+     * la cerca seqüencial.
+     * </p>
+     * * @param profunditatMaxima La profunditat límit per a la cerca Minimax.
+     * @param ttSizeMB Memòria de la Taula de Transposició en MB (compartida per tots els fils).
+     * @param threads Nombre de fils de cerca.
+     */
+    public PlayerMiniMax(int profunditatMaxima, int ttSizeMB, int threads) {
+        this(profunditatMaxima, ttSizeMB);
+        this.threads = Math.max(1, threads);
     }
     
     /**
@@ -80,34 +249,69 @@ public class PlayerMiniMax implements IPlayer, IAuto {
      * Inicialitza la profunditat fixa a -1 per indicar mode de temps.
      */
     protected PlayerMiniMax() {
-        this.fixedDepth = -1; 
+        this(-1, DEFAULT_TT_SIZE_MB);
+    }
+
+    /**
+     * Constructor protegit per als fils auxiliars de la cerca paral·lela.
+     * Treballen en mode IDS i comparteixen la Taula de Transposició indicada.
+     * * @param sharedTT Taula de Transposició compartida amb el fil principal.
+     */
+    protected PlayerMiniMax(TranspositionTable sharedTT) {
+        this.fixedDepth = -1;
+        this.tt = sharedTT;
     }
 
     /**
      * Decideix el millor moviment per a l'estat actual del joc.
      * Si la profunditat està fixada, executa una cerca directa.
      * També inclou mecanismes de seguretat contra errors d'execució.
-     * * @param s L'estat actual del joc (GameStatus).
+     * * @param gs L'estat actual del joc (GameStatus).
      * @return L'objecte PlayerMove amb la seqüència de moviments escollida.
      */
     @Override
-    public PlayerMove move(GameStatus s) {
+    public PlayerMove move(GameStatus gs) {
+        MyStatus s = new MyStatus(gs);
+        tt.newSearch();
         initStructures(s);
         nodesExplored = 0;
         timedOut = false;
+        cancellation.reset(CancellationToken.NO_DEADLINE);
 
         // Optimització: si només hi ha un moviment possible, no cal cercar
-        if (s.getMoves().size() == 1) {
-            return new PlayerMove(getSafeSequence(s), 0, 0, SearchType.MINIMAX);
+        if (s.countMoves() == 1) {
+            return new PlayerMove(getSafeSequence(gs), 0, 0, SearchType.MINIMAX);
         }
 
         // Execució de l'algorisme
-        Result res = minimax(s, fixedDepth, Integer.MIN_VALUE, Integer.MAX_VALUE, 0, true);
+        long start = System.nanoTime();
+        int score;
+        int[] line;
+        if (threads > 1 && fixedDepth > 0) {
+            if (parallel == null) parallel = new ParallelSearch(this, tt, fixedDepth, threads);
+            Result res = parallel.search(s, fixedDepth * ONE_PLY);
+            score = res.score;
+            line = res.sequence;
+            workerNodes = parallel.getWorkerNodes();
+            nodesExplored = parallel.getTotalNodes();
+            ttProbes = parallel.getTTProbes();
+            ttHits = parallel.getTTHits();
+            ttCutoffs = parallel.getTTCutoffs();
+            qsNodes = parallel.getQuiescenceNodes();
+            evalHits = parallel.getEvalCacheHits();
+            evalMisses = parallel.getEvalCacheMisses();
+        } else {
+            score = minimax(s, fixedDepth * ONE_PLY, Integer.MIN_VALUE, Integer.MAX_VALUE, 0, true);
+            line = pvLine(0);
+            workerNodes = new long[] { nodesExplored };
+        }
+        lastSearchNanos = System.nanoTime() - start;
+        lastScore = score;
         
         // Verificació de seguretat: si la seqüència és buida o nul·la, generem una vàlida
-        List<Point> sequence = res.sequence;
-        if (sequence == null || sequence.isEmpty()) {
-            sequence = getSafeSequence(s);
+        List<Point> sequence = completeTurn(s, line);
+        if (sequence.isEmpty()) {
+            sequence = getSafeSequence(gs);
         }
 
         return new PlayerMove(sequence, nodesExplored, fixedDepth, SearchType.MINIMAX);
@@ -117,7 +321,27 @@ public class PlayerMiniMax implements IPlayer, IAuto {
      * Notifica al jugador que s'ha esgotat el temps.
      */
     @Override
-    public void timeout() { this.timedOut = true; }
+    public void timeout() { cancellation.cancel(); }
+
+    /**
+     * @return Temps entre la cancel·lació i el retorn de l'últim moviment en ms (-1 si no s'ha cancel·lat).
+     */
+    public double getLastStopLatencyMillis() {
+        return lastStopLatencyNanos < 0 ? -1 : lastStopLatencyNanos / 1e6;
+    }
+
+    /**
+     * @return Latència d'aturada màxima des de la creació del jugador en ms.
+     */
+    public double getMaxStopLatencyMillis() { return maxStopLatencyNanos / 1e6; }
+
+    /**
+     * Registra la latència d'aturada del moviment que està a punt de retornar.
+     */
+    protected void recordStopLatency() {
+        lastStopLatencyNanos = cancellation.nanosSinceCancel(System.nanoTime());
+        if (lastStopLatencyNanos > maxStopLatencyNanos) maxStopLatencyNanos = lastStopLatencyNanos;
+    }
 
     /**
      * Retorna el nom del jugador.
@@ -126,37 +350,318 @@ public class PlayerMiniMax implements IPlayer, IAuto {
     @Override
     public String getName() { return name; }
 
+    /**
+     * @return Nombre de fils de cerca.
+     */
+    public int getThreads() { return threads; }
+
+    /**
+     * @return Nodes explorats per cada fil en l'últim moviment de profunditat fixa.
+     */
+    public long[] getWorkerNodes() { return workerNodes.clone(); }
+
+    /**
+     * @return Temps de la darrera cerca de profunditat fixa en mil·lisegons.
+     */
+    public double getLastSearchMillis() { return lastSearchNanos / 1e6; }
+
+    /**
+     * @return Puntuació a l'arrel de la darrera cerca de profunditat fixa.
+     */
+    public int getLastScore() { return lastScore; }
+
+    /**
+     * Allibera els fils de la cerca paral·lela, si n'hi ha. Mentre viuen, els motors
+     * de cada fil retenen la Taula de Transposició i la memòria cau; si el jugador es
+     * torna a fer servir, el pool es crea de nou.
+     */
+    public void close() {
+        if (parallel != null) {
+            parallel.close();
+            parallel = null;
+        }
+    }
+
+    /**
+     * Mesura l'acceleració de la cerca paral·lela respecte de la seqüencial sobre una
+     * mateixa posició. Cada cerca es fa amb un jugador i una TT nous.
+     * * @param gs Posició a analitzar.
+     * @param depth Profunditat de la cerca.
+     * @param threads Nombre de fils de la versió paral·lela.
+     * @return Temps seqüencial dividit pel temps paral·lel.
+     * @throws IllegalStateException Si les dues cerques no donen la mateixa puntuació.
+     */
+    public static double measureSpeedup(GameStatus gs, int depth, int threads) {
+        PlayerMiniMax seq = new PlayerMiniMax(depth, DEFAULT_TT_SIZE_MB, 1);
+        PlayerMiniMax par = new PlayerMiniMax(depth, DEFAULT_TT_SIZE_MB, threads);
+        // Les podes selectives depenen de la finestra: només la cerca exacta ha de coincidir
+        seq.setSelectiveSearch(false, false);
+        par.setSelectiveSearch(false, false);
+        try {
+            seq.move(gs);
+            par.move(gs);
+        } finally {
+            par.close();
+        }
+        if (seq.lastScore != par.lastScore) {
+            throw new IllegalStateException("Parallel score " + par.lastScore
+                    + " differs from sequential score " + seq.lastScore);
+        }
+        return (double) seq.lastSearchNanos / Math.max(1, par.lastSearchNanos);
+    }
+
+    /**
+     * @return Nombre de consultes a la Taula de Transposició en l'últim moviment.
+     */
+    public long getTTProbes() { return ttProbes; }
+
+    /**
+     * @return Nombre de consultes en què la clau coincidia (encerts) en l'últim moviment.
+     */
+    public long getTTHits() { return ttHits; }
+
+    /**
+     * @return Nombre d'encerts que han permès retornar sense cercar en l'últim moviment.
+     */
+    public long getTTCutoffs() { return ttCutoffs; }
+
+    /**
+     * @return Percentatge d'encerts de la Taula de Transposició (0 si no hi ha consultes).
+     */
+    public double getTTHitRate() {
+        return ttProbes == 0 ? 0 : (100.0 * ttHits) / ttProbes;
+    }
+
+    /**
+     * Canvia la mida de la memòria cau de l'avaluació (el contingut es perd). Els fils
+     * auxiliars la comparteixen a partir de la cerca següent.
+     * * @param sizeMB Memòria en MB, independent de la TT (0 per desactivar-la).
+     */
+    public void setEvalCacheSize(int sizeMB) {
+        this.evalCache = sizeMB > 0 ? new EvalCache(sizeMB) : null;
+    }
+
+    /**
+     * @return Avaluacions trobades a la memòria cau en l'últim moviment.
+     */
+    public long getEvalCacheHits() { return evalHits; }
+
+    /**
+     * @return Avaluacions que s'han hagut de calcular en l'últim moviment.
+     */
+    public long getEvalCacheMisses() { return evalMisses; }
+
+    /**
+     * @return Percentatge d'encerts de la memòria cau de l'avaluació (0 si no hi ha consultes).
+     */
+    public double getEvalCacheHitRate() {
+        long probes = evalHits + evalMisses;
+        return probes == 0 ? 0 : (100.0 * evalHits) / probes;
+    }
+
+    /**
+     * Canvia l'avaluador de totes les mides de tauler que no en tenen cap de propi.
+     * Les entrades de la memòria cau d'un altre avaluador no es fan servir (la clau
+     * inclou la signatura de l'avaluador).
+     * * @param evaluator Funció d'avaluació de les fulles.
+     */
+    public void setEvaluator(Evaluator evaluator) {
+        this.defaultEvaluator = evaluator;
+    }
+
+    /**
+     * Fixa l'avaluador d'una mida de tauler: als taulers grans, on es guanya més
+     * profunditat, pot sortir a compte un avaluador més barat.
+     * * @param boardSize Mida del costat de l'hexàgon.
+     * @param evaluator Funció d'avaluació per a aquesta mida (null per tornar al per defecte).
+     */
+    public void setEvaluator(int boardSize, Evaluator evaluator) {
+        // Còpia nova: els motors auxiliars comparteixen el vector anterior
+        Evaluator[] bySize = Arrays.copyOf(sizeEvaluators, Math.max(sizeEvaluators.length, boardSize + 1));
+        bySize[boardSize] = evaluator;
+        this.sizeEvaluators = bySize;
+    }
+
+    /**
+     * @param boardSize Mida del costat de l'hexàgon.
+     * @return Avaluador que es farà servir en aquesta mida.
+     */
+    public Evaluator getEvaluator(int boardSize) {
+        Evaluator e = boardSize < sizeEvaluators.length ? sizeEvaluators[boardSize] : null;
+        return e != null ? e : defaultEvaluator;
+    }
+
+    /**
+     * Activa o desactiva la cerca per torns complets (desactivada per defecte).
+     * <p>
+     * Amb les macro-jugades, cada fill d'un node és la posició en acabar un torn sencer
+     * (captures encadenades i col·locació final), sense repetir les posicions a què
+     * s'arriba amb ordres de captura diferents. Sense, es baixa col·locació a
+     * col·locació i les captures costen una fracció de ply.
+     * </p>
+     * * @param enabled Cert per cercar torns complets.
+     */
+    public void setMacroMoves(boolean enabled) { this.macroMoves = enabled; }
+
+    /**
+     * Copia els interruptors de la cerca d'un altre jugador. Els motors auxiliars de
+     * la cerca paral·lela ho fan servir per cercar igual que el jugador principal.
+     * * @param other Jugador del qual es copien els interruptors.
+     */
+    protected void copySearchSettings(PlayerMiniMax other) {
+        this.macroMoves = other.macroMoves;
+        this.chainCost = other.chainCost;
+        this.maxChain = other.maxChain;
+        this.turnBudget = other.turnBudget;
+        this.quiescence = other.quiescence;
+        this.qsMaxCaptures = other.qsMaxCaptures;
+        this.qsDelta = other.qsDelta;
+        this.nullMove = other.nullMove;
+        this.lateMoveReductions = other.lateMoveReductions;
+        this.evalCache = other.evalCache;
+        this.defaultEvaluator = other.defaultEvaluator;
+        this.sizeEvaluators = other.sizeEvaluators;
+    }
+
+    /**
+     * Configura el cost de les captures encadenades.
+     * <p>
+     * Cada captura que manté el torn costa {@code cost} unitats de profunditat
+     * ({@link #ONE_PLY} per ply) fins a la captura {@code maxChain} del torn; les
+     * següents costen un ply sencer. Amb les macro-jugades, a partir de {@code maxChain}
+     * captures el generador de torns deixa de ramificar les cadenes.
+     * </p>
+     * * @param cost Unitats per captura dins del límit (0 per no cobrar-les, com abans).
+     * @param maxChain Captures per torn amb el cost reduït.
+     */
+    public void setChainExtension(int cost, int maxChain) {
+        this.chainCost = Math.max(0, Math.min(ONE_PLY, cost));
+        this.maxChain = Math.max(0, maxChain);
+    }
+
+    /**
+     * Limita la feina del generador de torns en cada node. Si per generar els torns
+     * s'han de jugar més captures, el node es cerca per col·locacions soltes.
+     * * @param budget Captures per node (com a mínim 1).
+     */
+    public void setTurnBudget(int budget) {
+        this.turnBudget = Math.max(1, budget);
+    }
+
+    /**
+     * @return Nodes de l'últim moviment on el generador de torns ha esgotat el pressupost.
+     */
+    public long getMacroFallbacks() { return macroFallbacks; }
+
+    /**
+     * Configura la cerca de quiescència a l'horitzó.
+     * * @param enabled Cert per seguir les captures a l'horitzó (fals: s'avalua directament).
+     * @param maxCaptures Captures seguides que es poden encadenar com a màxim.
+     * @param delta Marge de la poda delta.
+     */
+    public void setQuiescence(boolean enabled, int maxCaptures, int delta) {
+        this.quiescence = enabled;
+        this.qsMaxCaptures = Math.max(0, maxCaptures);
+        this.qsDelta = Math.max(0, delta);
+    }
+
+    /**
+     * @return Nodes de quiescència de l'últim moviment (no es compten a {@link #nodesExplored}).
+     */
+    public long getQuiescenceNodes() { return qsNodes; }
+
+    /**
+     * Activa o desactiva les parts selectives de la cerca.
+     * * @param nullMove Cert per provar la poda per jugada nul·la.
+     * @param lateMoveReductions Cert per reduir les jugades tardanes.
+     */
+    public void setSelectiveSearch(boolean nullMove, boolean lateMoveReductions) {
+        this.nullMove = nullMove;
+        this.lateMoveReductions = lateMoveReductions;
+    }
+
+    /**
+     * @return Podes per jugada nul·la en l'últim moviment.
+     */
+    public long getNullCutoffs() { return nullCutoffs; }
+
+    /**
+     * @return Jugades tardanes cercades amb profunditat reduïda en l'últim moviment.
+     */
+    public long getLmrReductions() { return lmrReductions; }
+
+    /**
+     * @return Jugades reduïdes que s'han hagut de tornar a cercar en l'últim moviment.
+     */
+    public long getLmrResearches() { return lmrResearches; }
+
+    /**
+     * Profunditat d'un fill que continua el torn amb una captura.
+     * * @param depth Profunditat del node pare (en unitats).
+     * @param s Estat després de la captura.
+     * @return Profunditat del fill.
+     */
+    protected int chainDepth(int depth, MyStatus s) {
+        return depth - (s.getTurnCaptures() <= maxChain ? chainCost : ONE_PLY);
+    }
+
+    /**
+     * Cost d'un torn complet de la cerca per macro-jugades: la col·locació final costa
+     * un ply i les captures, el mateix que a la cerca per col·locacions.
+     * * @param captures Captures del torn.
+     * @return Unitats de profunditat.
+     */
+    protected int turnCost(int captures) {
+        int cheap = Math.min(captures, maxChain);
+        return ONE_PLY + cheap * chainCost + (captures - cheap) * ONE_PLY;
+    }
+
+    /**
+     * @return Torns diferents generats als nodes interiors en l'últim moviment.
+     */
+    public long getMacroTurns() { return macroTurns; }
+
+    /**
+     * @return Posicions del torn descartades en l'últim moviment perquè s'hi arribava per un altre ordre.
+     */
+    public long getMacroDuplicates() { return macroDuplicates; }
+
     /**
      * Inicialitza o neteja les estructures de dades necessàries per al torn.
      * Gestiona la memòria dels buffers i taules heurístiques.
      * * @param s Estat actual per determinar mides del tauler.
      */
-    protected void initStructures(GameStatus s) {
+    protected void initStructures(MyStatus s) {
         this.rootPlayer = s.getCurrentPlayer();
-        int size = s.getSize();
-        this.maxBoardDim = size * 2 + 2;
+        this.evaluator = getEvaluator(s.getSize());
+        this.ttProbes = 0;
+        this.ttHits = 0;
+        this.ttCutoffs = 0;
+        this.macroTurns = 0;
+        this.macroFallbacks = 0;
+        this.qsNodes = 0;
+        this.evalHits = 0;
+        this.evalMisses = 0;
+        this.nullCutoffs = 0;
+        this.lmrReductions = 0;
+        this.lmrResearches = 0;
+        this.macroDuplicates = 0;
+        int cells = s.getSquareSize() * (s.getSquareSize() + 1);
         
-        if (visitedBuffer == null || visitedBuffer.length != size) {
-            visitedBuffer = new boolean[size][size];
+        // Neteja dels Killer Moves (la taula creix amb el ply, vegeu storeKiller)
+        if (killerMoves == null) {
+            killerMoves = new int[64][2];
         }
-        
-        // Neteja parcial dels Killer Moves
-        if (killerMoves == null || killerMoves.length < 100) {
-            killerMoves = new Point[100][2];
-        } else {
-            for(int i=0; i<killerMoves.length; i++) {
-                killerMoves[i][0] = null;
-                killerMoves[i][1] = null;
-            }
+        for (int[] killers : killerMoves) {
+            killers[0] = TranspositionTable.NO_MOVE;
+            killers[1] = TranspositionTable.NO_MOVE;
         }
         
         // Decaïment de la taula d'història per adaptar-se a la nova fase del joc
-        if (historyHeuristic == null || historyHeuristic.length != maxBoardDim) {
-            historyHeuristic = new int[maxBoardDim][maxBoardDim];
+        if (historyHeuristic == null || historyHeuristic.length != cells) {
+            historyHeuristic = new int[cells];
         } else {
-             for(int i=0; i<maxBoardDim; i++) 
-                for(int j=0; j<maxBoardDim; j++) 
-                    historyHeuristic[i][j] /= 8;
+            for (int i = 0; i < cells; i++) historyHeuristic[i] /= 8;
         }
     }
 
@@ -164,123 +669,166 @@ public class PlayerMiniMax implements IPlayer, IAuto {
      * Implementació de l'algorisme Principal Variation Search (PVS).
      * Realitza una cerca recursiva intentant provar el primer moviment amb finestra completa
      * i la resta amb finestra nul·la (Null Window) per accelerar les podes.
+     * <p>
+     * La seqüència del torn que comença al node queda a la taula de variació principal
+     * ({@link #pvLine(int)}): la recursió només retorna la puntuació.
+     * </p>
      * * @param s Estat actual del joc.
-     * @param depth Profunditat restant per explorar.
+     * @param depth Profunditat restant per explorar, en unitats de {@link #ONE_PLY}.
      * @param alpha Valor Alpha (cota inferior).
      * @param beta Valor Beta (cota superior).
      * @param ply Profunditat actual des de l'arrel (per a distància de victòria).
-     * @param allowNull Indica si es permet fer Null Window Search (no utilitzat en aquesta versió base).
-     * @return Objecte Result amb la millor puntuació i la seqüència de moviments.
+     * @param allowNull Indica si es pot provar la jugada nul·la (fals just després d'una).
+     * @return Millor puntuació del node.
      */
-    protected Result minimax(GameStatus s, int depth, int alpha, int beta, int ply, boolean allowNull) {
-        // En mode profunditat fixa, ignorem el flag de temps si no s'indica el contrari
-        if (fixedDepth == -1 && timedOut) return new Result(0, null);
+    protected int minimax(MyStatus s, int depth, int alpha, int beta, int ply, boolean allowNull) {
+        clearPv(ply);
+        if (stopRequested()) return 0;
         
         nodesExplored++;
 
         // --- 1. Consulta a la Taula de Transposició (TT) ---
-        long zobristKey = s.hashCode(); 
-        int ttIndex = (int) ((zobristKey & 0x7FFFFFFFFFFFFFFFL) % TT_SIZE);
-        TTEntry entry = tt[ttIndex];
-        List<Point> ttMove = null;
+        long zobristKey = ttKey(s);
+        long entry = tt.probe(zobristKey);
+        int ttMove = TranspositionTable.NO_MOVE;
 
-        if (entry != null && entry.key == zobristKey && entry.depth >= depth) {
-            if (entry.flag == FLAG_EXACT) return new Result(entry.score, entry.bestSequence);
-            if (entry.flag == FLAG_LOWERBOUND) alpha = Math.max(alpha, entry.score);
-            if (entry.flag == FLAG_UPPERBOUND) beta = Math.min(beta, entry.score);
-            if (alpha >= beta) return new Result(entry.score, entry.bestSequence);
-            ttMove = entry.bestSequence; 
+        ttProbes++;
+        if (TranspositionTable.isValid(entry)) {
+            ttHits++;
+            // El millor moviment guardat serveix per ordenar encara que la profunditat no arribi
+            ttMove = TranspositionTable.move(entry);
+            // A l'arrel sempre es cerca: cal una seqüència completa per retornar
+            if (ply > 0 && ttDepthUsable(TranspositionTable.depth(entry), depth)) {
+                int ttScore = scoreFromTT(TranspositionTable.score(entry), ply);
+                int ttFlag = TranspositionTable.flag(entry);
+                if (ttFlag == FLAG_EXACT) {
+                    ttCutoffs++;
+                    return ttScore;
+                }
+                if (ttFlag == FLAG_LOWERBOUND) alpha = Math.max(alpha, ttScore);
+                if (ttFlag == FLAG_UPPERBOUND) beta = Math.min(beta, ttScore);
+                if (alpha >= beta) {
+                    ttCutoffs++;
+                    return ttScore;
+                }
+            }
         }
 
         // --- 2. Casos Base ---
         if (s.isGameOver()) {
             // Puntuació molt alta/baixa ajustada per ply per preferir victòries ràpides
-            return new Result(s.GetWinner() == rootPlayer ? 1000000 - ply : -1000000 + ply, null);
+            return s.GetWinner() == rootPlayer ? WIN_SCORE - ply : -WIN_SCORE + ply;
         }
 
         if (depth <= 0) {
-             return new Result(heuristic(s), null);
+            return quiescence ? quiesce(s, alpha, beta, ply, 0) : heuristic(s);
+        }
+
+        // --- Poda per jugada nul·la: si passant el torn ja se supera la finestra, es poda ---
+        if (allowNull && nullMoveAllowed(s, depth, ply)) {
+            boolean isMaxNode = (s.getCurrentPlayer() == rootPlayer);
+            int bound = isMaxNode ? beta : alpha;
+            // Lluny de les puntuacions de victòria (la finestra inicial no és cap límit útil)
+            boolean quiet = bound > -WIN_THRESHOLD && bound < WIN_THRESHOLD;
+            int staticEval = quiet ? heuristic(s) : 0;
+            if (quiet && (isMaxNode ? staticEval >= beta : staticEval <= alpha)) {
+                s.makeNullMove();
+                int nullScore = isMaxNode
+                        ? minimax(s, depth - ONE_PLY - NULL_REDUCTION, beta - 1, beta, ply + 1, false)
+                        : minimax(s, depth - ONE_PLY - NULL_REDUCTION, alpha, alpha + 1, ply + 1, false);
+                s.unmakeNullMove();
+                if (!stopRequested() && (isMaxNode ? nullScore >= beta : nullScore <= alpha)) {
+                    nullCutoffs++;
+                    return bound;
+                }
+            }
+        }
+
+        // A mig torn només s'hi arriba des de l'arrel o des d'un node que ja ha esgotat el pressupost
+        if (macroMoves && (ply <= 1 || s.getTurnCaptures() == 0)) {
+            TurnGenerator turns = turnGenerator(ply);
+            int n = turns.generate(s, maxChain, turnBudget);
+            if (n >= 0) return minimaxTurns(s, turns, n, depth, alpha, beta, ply, zobristKey, ttMove);
+            macroFallbacks++;
         }
 
-        List<Point> moves = s.getMoves();
-        if (moves.isEmpty()) return new Result(heuristic(s), null); 
+        MovePicker moves = movePicker(ply);
+        int n = moves.generate(s);
+        if (n == 0) return heuristic(s);
 
         // --- 3. Ordenació de Moviments ---
-        Point hashPoint = (ttMove != null && !ttMove.isEmpty()) ? ttMove.get(0) : null;
-        final int currentPly = ply; 
-        
-        moves.sort((p1, p2) -> {
-            if (p1.equals(hashPoint)) return -1; // Moviment de la TT primer
-            if (p2.equals(hashPoint)) return 1;
-            
-            boolean k1 = isKiller(currentPly, p1);
-            boolean k2 = isKiller(currentPly, p2);
-            if (k1 && !k2) return -1; // Killer moves segon
-            if (!k1 && k2) return 1;
-            
-            // Heurística d'història tercer
-            int h1 = (p1.x < maxBoardDim && p1.y < maxBoardDim) ? historyHeuristic[p1.x][p1.y] : 0;
-            int h2 = (p2.x < maxBoardDim && p2.y < maxBoardDim) ? historyHeuristic[p2.x][p2.y] : 0;
-            return h2 - h1; 
-        });
+        orderMoves(moves, ttMove, ply);
 
         // --- 4. Cerca Recursiva PVS ---
-        List<Point> bestSeq = null;
+        int bestMove = TranspositionTable.NO_MOVE;
         int bestVal = (s.getCurrentPlayer() == rootPlayer) ? Integer.MIN_VALUE : Integer.MAX_VALUE;
         int originalAlpha = alpha;
         boolean firstMove = true;
         boolean isMax = (s.getCurrentPlayer() == rootPlayer);
+        PlayerType mover = s.getCurrentPlayer();
 
-        for (Point p : moves) {
-            if (fixedDepth == -1 && timedOut) break;
+        for (int k = 0; k < n; k++) {
+            if (stopRequested()) break;
+            int move = moves.next(k);
 
-            GameStatus next = new GameStatus(s);
-            
-            // Bloc try-catch per protegir contra errors interns de la llibreria GameStatus
-            try {
-                next.placeStone(p);
-            } catch (Exception e) {
-                continue; // Si el moviment provoca error, el saltem
-            }
+            // Jugades tardanes sense captura que no són ni la de la TT ni killers: candidates a reduir
+            boolean reducible = lateMoveReductions && k >= LMR_FULL_MOVES && depth >= LMR_MIN_DEPTH
+                    && move != ttMove && !isKiller(ply, move) && !s.isCapture(move);
+
+            // Es baixa sobre el mateix estat (make/unmake) en lloc de copiar-lo
+            s.makeMove(move);
 
-            boolean sameTurn = (next.getCurrentPlayer() == s.getCurrentPlayer());
+            boolean sameTurn = (s.getCurrentPlayer() == mover);
+
+            int childScore = 0;
+            boolean searched = false;
+            if (reducible && !firstMove && !sameTurn) {
+                // Cerca reduïda amb finestra nul·la; si la jugada promet, es cerca sencera
+                lmrReductions++;
+                int reduced = depth - 2 * ONE_PLY;
+                childScore = isMax ? minimax(s, reduced, alpha, alpha + 1, ply + 1, true)
+                                   : minimax(s, reduced, beta - 1, beta, ply + 1, true);
+                searched = true;
+                if (isMax ? childScore > alpha : childScore < beta) {
+                    lmrResearches++;
+                    searched = false;
+                }
+            }
 
-            Result childRes;
-            if (firstMove || sameTurn) {
+            if (!searched && (firstMove || sameTurn)) {
                 // Finestra completa per al primer node o si repetim torn
-                int nextDepth = sameTurn ? depth : depth - 1;
-                childRes = minimax(next, nextDepth, alpha, beta, ply + 1, true);
-            } else {
+                int nextDepth = sameTurn ? chainDepth(depth, s) : depth - ONE_PLY;
+                childScore = minimax(s, nextDepth, alpha, beta, ply + 1, true);
+            } else if (!searched) {
                 // Finestra Nul·la (Null Window Search) per a la resta
-                childRes = minimax(next, depth - 1, alpha, alpha + 1, ply + 1, false);
+                childScore = minimax(s, depth - ONE_PLY, alpha, alpha + 1, ply + 1, true);
                 if (isMax) {
                     // Si falla la hipòtesi (trobem millor), re-cerca amb finestra completa
-                    if (childRes.score > alpha && childRes.score < beta) {
-                        childRes = minimax(next, depth - 1, alpha, beta, ply + 1, true);
+                    if (childScore > alpha && childScore < beta) {
+                        childScore = minimax(s, depth - ONE_PLY, alpha, beta, ply + 1, true);
                     }
                 } else {
-                     if (childRes.score < beta && childRes.score > alpha) {
-                        childRes = minimax(next, depth - 1, alpha, beta, ply + 1, true);
+                     if (childScore < beta && childScore > alpha) {
+                        childScore = minimax(s, depth - ONE_PLY, alpha, beta, ply + 1, true);
                      }
                 }
             }
+            s.unmakeMove();
             firstMove = false;
 
             // Actualització de valors Alpha-Beta
             if (isMax) {
-                if (childRes.score > bestVal) {
-                    bestVal = childRes.score;
-                    bestSeq = new ArrayList<>();
-                    bestSeq.add(p);
-                    if (sameTurn && childRes.sequence != null) bestSeq.addAll(childRes.sequence);
+                if (childScore > bestVal) {
+                    bestVal = childScore;
+                    bestMove = move;
+                    updatePv(ply, move, sameTurn);
                 }
                 alpha = Math.max(alpha, bestVal);
             } else {
-                if (childRes.score < bestVal) {
-                    bestVal = childRes.score;
-                    bestSeq = new ArrayList<>();
-                    bestSeq.add(p);
-                    if (sameTurn && childRes.sequence != null) bestSeq.addAll(childRes.sequence);
+                if (childScore < bestVal) {
+                    bestVal = childScore;
+                    bestMove = move;
+                    updatePv(ply, move, sameTurn);
                 }
                 beta = Math.min(beta, bestVal);
             }
@@ -288,126 +836,546 @@ public class PlayerMiniMax implements IPlayer, IAuto {
             // Poda Beta
             if (beta <= alpha) {
                 if (!sameTurn) { 
-                    storeKiller(ply, p);
-                    updateHistory(p, depth);
+                    storeKiller(ply, move);
+                    updateHistory(move, depth / ONE_PLY);
                 }
                 break; 
             }
         }
 
         // --- 5. Emmagatzematge a la TT ---
-        if (fixedDepth != -1 || !timedOut) {
-            TTEntry newEntry = new TTEntry();
-            newEntry.key = zobristKey;
-            newEntry.score = bestVal;
-            newEntry.depth = depth;
-            newEntry.bestSequence = bestSeq;
-            if (bestVal <= originalAlpha) newEntry.flag = FLAG_UPPERBOUND;
-            else if (bestVal >= beta) newEntry.flag = FLAG_LOWERBOUND;
-            else newEntry.flag = FLAG_EXACT;
-            tt[ttIndex] = newEntry;
+        if (!stopRequested()) {
+            int flag;
+            if (bestVal <= originalAlpha) flag = FLAG_UPPERBOUND;
+            else if (bestVal >= beta) flag = FLAG_LOWERBOUND;
+            else flag = FLAG_EXACT;
+            tt.store(zobristKey, scoreToTT(bestVal, ply), depth, flag, bestMove);
+        }
+
+        return bestVal;
+    }
+
+    /**
+     * Cos de la cerca PVS quan els fills són torns complets.
+     * <p>
+     * Els torns del jugador que mou ja s'han generat amb el {@link TurnGenerator} del ply
+     * i es recorren per ordre: el que comença amb la jugada de la TT, els killers i la
+     * taula d'història de la col·locació que tanca el torn. Cada torn costa
+     * {@link #turnCost(int)} unitats de profunditat i el ply avança tantes col·locacions
+     * com té el torn, igual que a la cerca per col·locacions.
+     * </p>
+     * * @param s Estat actual del joc (la partida no s'ha acabat).
+     * @param turns Generador del ply amb els torns del node.
+     * @param n Nombre de torns generats.
+     * @param depth Profunditat restant (positiva).
+     * @param alpha Valor Alpha (cota inferior).
+     * @param beta Valor Beta (cota superior).
+     * @param ply Profunditat actual des de l'arrel.
+     * @param zobristKey Clau de la TT del node.
+     * @param ttMove Moviment guardat a la TT o {@link TranspositionTable#NO_MOVE}.
+     * @return Millor puntuació del node (el torn queda a la variació principal del ply).
+     */
+    protected int minimaxTurns(MyStatus s, TurnGenerator turns, int n, int depth, int alpha, int beta,
+                               int ply, long zobristKey, int ttMove) {
+        if (n == 0) return heuristic(s);
+        macroTurns += n;
+
+        for (int t = 0; t < n; t++) {
+            int len = turns.length(t);
+            if (turns.first(t) == ttMove) {
+                turns.setScore(t, Integer.MAX_VALUE - len);
+            } else {
+                // Captures primer (més llargues, abans) i després la col·locació que tanca el torn
+                int last = turns.cell(t, len - 1);
+                int quiet = isKiller(ply, last) ? KILLER_SCORE - 1 : Math.min(historyScore(last), KILLER_SCORE - 2);
+                turns.setScore(t, len > 1 ? KILLER_SCORE + len : quiet);
+            }
+        }
+
+        boolean isMax = (s.getCurrentPlayer() == rootPlayer);
+        int bestVal = isMax ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+        int bestTurn = -1;
+        int originalAlpha = alpha;
+        boolean firstMove = true;
+
+        for (int k = 0; k < n; k++) {
+            if (stopRequested()) break;
+            int t = turns.next(k);
+            if (!turns.playUnique(s, t)) continue;
+            int childPly = ply + turns.length(t);
+            int childDepth = depth - turnCost(turns.captures(t));
+
+            int childScore;
+            if (firstMove) {
+                childScore = minimax(s, childDepth, alpha, beta, childPly, true);
+            } else {
+                childScore = minimax(s, childDepth, alpha, alpha + 1, childPly, true);
+                if (childScore > alpha && childScore < beta) {
+                    childScore = minimax(s, childDepth, alpha, beta, childPly, true);
+                }
+            }
+            turns.undo(s, t);
+            firstMove = false;
+
+            if (isMax ? childScore > bestVal : childScore < bestVal) {
+                bestVal = childScore;
+                bestTurn = t;
+            }
+            if (isMax) alpha = Math.max(alpha, bestVal);
+            else beta = Math.min(beta, bestVal);
+
+            if (beta <= alpha) {
+                // Com a la cerca per col·locacions, només les jugades que tanquen el torn
+                if (turns.length(t) == 1) {
+                    storeKiller(ply, turns.first(t));
+                    updateHistory(turns.first(t), depth / ONE_PLY);
+                }
+                break;
+            }
+        }
+
+        macroDuplicates += turns.getDuplicates();
+        if (bestTurn >= 0) setPv(ply, turns, bestTurn);
+        if (!stopRequested()) {
+            int flag;
+            if (bestVal <= originalAlpha) flag = FLAG_UPPERBOUND;
+            else if (bestVal >= beta) flag = FLAG_LOWERBOUND;
+            else flag = FLAG_EXACT;
+            int bestMove = (bestTurn >= 0) ? turns.first(bestTurn) : TranspositionTable.NO_MOVE;
+            tt.store(zobristKey, scoreToTT(bestVal, ply), depth, flag, bestMove);
+        }
+        return bestVal;
+    }
+
+    /**
+     * Cerca de quiescència: a partir de l'horitzó només es proven les captures del
+     * jugador que mou, que manté el torn mentre encadeni captures.
+     * <p>
+     * L'avaluació estàtica fa de cota (stand-pat): el jugador pot deixar de capturar i
+     * tancar el torn amb una col·locació, així que no pot quedar pitjor que aquesta
+     * avaluació. Si ni sumant-hi el marge delta arriba a la finestra, tampoc es
+     * proven les captures. No es fa servir la TT i els nodes es compten a part.
+     * </p>
+     * * @param s Estat a l'horitzó (es fa i desfà sobre ell).
+     * @param alpha Valor Alpha (cota inferior).
+     * @param beta Valor Beta (cota superior).
+     * @param ply Profunditat actual des de l'arrel.
+     * @param captures Captures fetes dins de la quiescència.
+     * @return Puntuació de la posició.
+     */
+    protected int quiesce(MyStatus s, int alpha, int beta, int ply, int captures) {
+        qsNodes++;
+        if (s.isGameOver()) {
+            return s.GetWinner() == rootPlayer ? WIN_SCORE - ply : -WIN_SCORE + ply;
+        }
+        if (ply >= qsBufs.length) qsBufs = Arrays.copyOf(qsBufs, Math.max(ply + 1, qsBufs.length * 2));
+        if (qsBufs[ply] == null) qsBufs[ply] = new int[s.getCellCount()];
+        int[] moves = qsBufs[ply];
+        boolean isMax = (s.getCurrentPlayer() == rootPlayer);
+        // La mobilitat surt dels conjunts de jugades de l'estat: l'avaluació no genera jugades
+        int standPat = heuristic(s);
+        if (captures >= qsMaxCaptures || timedOut) return standPat;
+
+        if (isMax) {
+            if (standPat >= beta || standPat + qsDelta <= alpha) return standPat;
+            alpha = Math.max(alpha, standPat);
+        } else {
+            if (standPat <= alpha || standPat - qsDelta >= beta) return standPat;
+            beta = Math.min(beta, standPat);
+        }
+
+        int best = standPat;
+        int n = s.generateCaptures(moves);
+        for (int i = 0; i < n; i++) {
+            s.makeMove(moves[i]);
+            int v = quiesce(s, alpha, beta, ply + 1, captures + 1);
+            s.unmakeMove();
+            if (isMax) {
+                if (v > best) best = v;
+                alpha = Math.max(alpha, best);
+            } else {
+                if (v < best) best = v;
+                beta = Math.min(beta, best);
+            }
+            if (alpha >= beta) break;
+        }
+        return best;
+    }
+
+    /**
+     * Condicions per provar la jugada nul·la. A Oust no es pot passar, així que la
+     * hipòtesi (tenir el torn no empitjora la posició) només es fa servir fora dels
+     * casos on falla més clarament: a mig torn (el jugador ha de seguir), amb poques
+     * fitxes d'algun jugador (final de partida, on cada col·locació pot ser forçada) o
+     * amb el tauler gairebé ple.
+     * * @param s Estat del node.
+     * @param depth Profunditat restant.
+     * @param ply Profunditat des de l'arrel.
+     * @return Cert si es pot provar.
+     */
+    protected boolean nullMoveAllowed(MyStatus s, int depth, int ply) {
+        if (!nullMove || ply == 0 || depth < NULL_MIN_DEPTH) return false;
+        if (s.getTurnCaptures() > 0) return false;
+        int p1 = s.getStoneCount(PlayerType.PLAYER1);
+        int p2 = s.getStoneCount(PlayerType.PLAYER2);
+        if (p1 < NULL_MIN_STONES || p2 < NULL_MIN_STONES) return false;
+        return 4 * (p1 + p2) < 3 * s.getCellCount();
+    }
+
+    /**
+     * @param ply Profunditat des de l'arrel.
+     * @return Llista de jugades reutilitzable del ply (es crea la primera vegada).
+     */
+    protected MovePicker movePicker(int ply) {
+        if (ply >= movePickers.length) {
+            movePickers = Arrays.copyOf(movePickers, Math.max(ply + 1, movePickers.length * 2));
+        }
+        MovePicker m = movePickers[ply];
+        if (m == null) {
+            m = new MovePicker();
+            movePickers[ply] = m;
+        }
+        return m;
+    }
+
+    /**
+     * @param ply Profunditat del node.
+     * @return Generador de torns reservat per al ply.
+     */
+    protected TurnGenerator turnGenerator(int ply) {
+        if (ply >= turnGenerators.length) {
+            turnGenerators = Arrays.copyOf(turnGenerators, Math.max(ply + 1, turnGenerators.length * 2));
+        }
+        TurnGenerator g = turnGenerators[ply];
+        if (g == null) {
+            g = new TurnGenerator();
+            turnGenerators[ply] = g;
+        }
+        return g;
+    }
+
+    /**
+     * Buida la variació principal del ply en entrar al node.
+     * @param ply Profunditat des de l'arrel.
+     */
+    protected void clearPv(int ply) {
+        if (ply >= pvLength.length) {
+            int size = Math.max(ply + 1, pvLength.length * 2);
+            pvTable = Arrays.copyOf(pvTable, size);
+            pvLength = Arrays.copyOf(pvLength, size);
+        }
+        pvLength[ply] = 0;
+    }
+
+    /**
+     * @param ply Profunditat des de l'arrel.
+     * @param length Jugades que ha de poder guardar la fila.
+     * @return Fila de la variació principal del ply (només creix).
+     */
+    private int[] pvRow(int ply, int length) {
+        int[] row = pvTable[ply];
+        if (row == null || row.length < length) {
+            row = new int[Math.max(length, row == null ? 16 : row.length * 2)];
+            pvTable[ply] = row;
         }
+        return row;
+    }
+
+    /**
+     * Nova millor jugada del node: la variació del ply passa a ser la jugada seguida,
+     * si el torn continua, de la del fill (que acaba de ser cercat al ply següent).
+     * @param ply Profunditat del node.
+     * @param move Jugada (índex de bit).
+     * @param sameTurn Cert si després de la jugada el torn continua.
+     */
+    protected void updatePv(int ply, int move, boolean sameTurn) {
+        int tail = sameTurn ? pvLength[ply + 1] : 0;
+        int[] row = pvRow(ply, tail + 1);
+        row[0] = move;
+        if (tail > 0) System.arraycopy(pvTable[ply + 1], 0, row, 1, tail);
+        pvLength[ply] = tail + 1;
+    }
 
-        return new Result(bestVal, bestSeq);
+    /**
+     * La variació del ply passa a ser un torn complet.
+     * @param ply Profunditat del node.
+     * @param turns Generador on hi ha el torn.
+     * @param t Índex del torn.
+     */
+    protected void setPv(int ply, TurnGenerator turns, int t) {
+        int len = turns.length(t);
+        int[] row = pvRow(ply, len);
+        for (int k = 0; k < len; k++) row[k] = turns.cell(t, k);
+        pvLength[ply] = len;
+    }
+
+    /**
+     * Còpia de la variació principal d'un node acabat de cercar. Només es demana fora de
+     * la recursió (a l'arrel o als nodes de repartiment), on es pot reservar memòria.
+     * @param ply Profunditat del node.
+     * @return Jugades del torn a partir del node, o null si la cerca no n'ha deixat cap.
+     */
+    protected int[] pvLine(int ply) {
+        if (ply >= pvLength.length || pvLength[ply] == 0) return null;
+        return Arrays.copyOf(pvTable[ply], pvLength[ply]);
+    }
+
+    /**
+     * Indica si la cerca en curs s'ha d'abandonar.
+     * En mode profunditat fixa s'ignora el timeout; els fils de la cerca paral·lela
+     * ho sobreescriuen per aturar-se quan un germà ja ha provocat la poda.
+     * <p>
+     * El token només es consulta cada {@link #POLL_INTERVAL} nodes: la latència
+     * d'aturada queda acotada pel temps de recórrer aquests nodes.
+     * </p>
+     * * @return Cert si cal aturar la cerca.
+     */
+    protected boolean stopRequested() {
+        if (fixedDepth != -1) return false;
+        if (!timedOut && (nodesExplored & (POLL_INTERVAL - 1)) == 0) pollCancellation();
+        return timedOut;
+    }
+
+    /**
+     * Consulta el token de cancel·lació i n'actualitza la còpia local.
+     * * @return Cert si cal aturar la cerca.
+     */
+    protected final boolean pollCancellation() {
+        if (!timedOut && cancellation.poll()) timedOut = true;
+        return timedOut;
+    }
+
+    /**
+     * Decideix si una entrada de la TT serveix per podar.
+     * <p>
+     * En mode IDS s'aprofiten entrades més profundes. En profunditat fixa només es fan
+     * servir les de la mateixa profunditat: així el valor de cada posició és exactament
+     * el minimax a aquella profunditat i la puntuació no depèn de l'ordre en què s'ha
+     * omplert la taula (cerques anteriors, o altres fils en la cerca paral·lela).
+     * </p>
+     * * @param storedDepth Profunditat guardada a l'entrada.
+     * @param depth Profunditat restant del node.
+     * @return Cert si l'entrada és utilitzable.
+     */
+    protected boolean ttDepthUsable(int storedDepth, int depth) {
+        return fixedDepth == -1 ? storedDepth >= depth : storedDepth == depth;
+    }
+
+    /**
+     * Converteix una puntuació de victòria relativa a l'arrel en relativa al node,
+     * perquè l'entrada de la TT valgui encara que s'hi arribi per un altre camí.
+     * * @param score Puntuació relativa a l'arrel.
+     * @param ply Distància del node a l'arrel.
+     * @return Puntuació a guardar.
+     */
+    protected static int scoreToTT(int score, int ply) {
+        if (score > WIN_THRESHOLD) return score + ply;
+        if (score < -WIN_THRESHOLD) return score - ply;
+        return score;
+    }
+
+    /**
+     * Inversa de {@link #scoreToTT(int, int)}.
+     * * @param score Puntuació guardada a la TT.
+     * @param ply Distància del node a l'arrel.
+     * @return Puntuació relativa a l'arrel.
+     */
+    protected static int scoreFromTT(int score, int ply) {
+        if (score > WIN_THRESHOLD) return score - ply;
+        if (score < -WIN_THRESHOLD) return score + ply;
+        return score;
+    }
+
+    /**
+     * Puntua els moviments per recórrer-los en ordre: primer el de la TT, després els
+     * killers i finalment segons la taula d'història.
+     * * @param moves Moviments del node (se'n fixen les puntuacions).
+     * @param ttMove Moviment guardat a la TT o {@link TranspositionTable#NO_MOVE}.
+     * @param ply Profunditat del node.
+     */
+    protected void orderMoves(MovePicker moves, int ttMove, int ply) {
+        for (int i = 0; i < moves.size(); i++) {
+            int m = moves.move(i);
+            if (m == ttMove) moves.setScore(i, Integer.MAX_VALUE);           // Moviment de la TT primer
+            else if (isKiller(ply, m)) moves.setScore(i, KILLER_SCORE);      // Killer moves segon
+            else moves.setScore(i, Math.min(historyScore(m), KILLER_SCORE - 1)); // Història tercer
+        }
     }
 
     /**
      * Funció d'Avaluació Heurística.
-     * <p>Calcula una puntuació per a l'estat actual basada en:</p>
+     * <p>La calcula l'{@link #evaluator} del moviment; el per defecte
+     * ({@link WeightedEvaluator#STANDARD}) es basa en:</p>
      * <ul>
      * <li><b>Connectivitat:</b> Grandària dels grups de fitxes (elevat al quadrat).</li>
      * <li><b>Agressivitat:</b> Penalització doble als grups del rival.</li>
      * <li><b>Mobilitat:</b> Nombre de moviments disponibles.</li>
      * </ul>
+     * <p>
+     * Les mides dels grups no es recorren aquí: {@link MyStatus} les manté
+     * incrementalment a cada jugada, de manera que el terme de connectivitat és O(1).
+     * La mobilitat tampoc no genera jugades: és el recompte dels conjunts de jugades
+     * legals que també manté {@link MyStatus}. Si la posició ja és a la memòria cau de
+     * l'avaluació, ni això.
+     * </p>
      * * @param s Estat del joc a avaluar.
      * @return Puntuació entera (positiva favorable al jugador arrel).
      */
-    protected int heuristic(GameStatus s) {
-        int size = s.getSize();
-        // Neteja ràpida del buffer de visitats
-        for(int i=0; i<size; i++) 
-            for(int j=0; j<size; j++) visitedBuffer[i][j] = false;
-        
-        double myScore = 0;
-        double oppScore = 0;
-        int myPieces = 0;
-        int oppPieces = 0;
-
-        for (int i = 0; i < size; i++) {
-            for (int j = 0; j < size; j++) {
-                if (!visitedBuffer[i][j]) {
-                    PlayerType p = s.getColor(i, j);
-                    if (p != null) {
-                        int groupSize = countGroupSize(s, i, j, p);
-                        // Fórmula quadràtica per potenciar grups grans i sòlids
-                        double val = Math.pow(groupSize, 2);
-                        if (p == rootPlayer) {
-                            myScore += val;
-                            myPieces += groupSize;
-                        } else {
-                            oppScore += val * 2.0; // Penalització agressiva
-                            oppPieces += groupSize;
-                        }
-                    }
-                }
-            }
+    protected int heuristic(MyStatus s) {
+        if (evalCache == null) return evaluator.evaluate(s, rootPlayer);
+        long key = ttKey(s) ^ evaluator.signature();
+        long entry = evalCache.probe(key);
+        if (EvalCache.isValid(entry)) {
+            evalHits++;
+            return EvalCache.score(entry);
         }
-        
-        // Bonus per material total
-        myScore += myPieces * 5;
-        oppScore += oppPieces * 5;
-        
-        // Bonus per mobilitat (diferència d'opcions de moviment)
-        int mobilityBonus = s.getMoves().size() * 10;
-        
-        return (int) (myScore * 10 - oppScore * 10) + mobilityBonus;
+        evalMisses++;
+        int value = evaluator.evaluate(s, rootPlayer);
+        evalCache.store(key, value);
+        return value;
     }
 
+    // --- Mètodes Auxiliars per Heurístiques d'Ordenació ---
+
+    /** Puntuació d'ordenació dels killers (per sobre de qualsevol valor d'història). */
+    protected static final int KILLER_SCORE = 1 << 30;
+
+    protected int historyScore(int move) {
+        return historyHeuristic[move];
+    }
+    
     /**
-     * Calcula recursivament la mida d'un grup de fitxes connectades.
-     * * @param s Estat del joc.
-     * @param x Coordenada X.
-     * @param y Coordenada Y.
-     * @param p Jugador propietari de la fitxa.
-     * @return Nombre de fitxes en el grup.
-     */
-    protected int countGroupSize(GameStatus s, int x, int y, PlayerType p) {
-        if (x < 0 || y < 0 || x >= s.getSize() || y >= s.getSize()) return 0;
-        if (visitedBuffer[x][y]) return 0;
-        if (s.getColor(x, y) != p) return 0;
-        visitedBuffer[x][y] = true;
-        int count = 1;
-        // Veïns hexagonals
-        int[][] dirs = {{1,0}, {1,-1}, {0,-1}, {-1,0}, {-1,1}, {0,1}};
-        for (int[] d : dirs) count += countGroupSize(s, x + d[0], y + d[1], p);
-        return count;
+     * Assegura que la taula de killers arriba fins al ply indicat. Les cadenes de
+     * captura poden allargar molt el camí, així que la taula creix a demanda.
+     * * @param ply Ply que s'ha de poder indexar.
+     */
+    protected void ensurePly(int ply) {
+        if (ply < killerMoves.length) return;
+        int old = killerMoves.length;
+        killerMoves = Arrays.copyOf(killerMoves, Math.max(ply + 1, old * 2));
+        for (int i = old; i < killerMoves.length; i++) {
+            killerMoves[i] = new int[] { TranspositionTable.NO_MOVE, TranspositionTable.NO_MOVE };
+        }
     }
 
-    // --- Mètodes Auxiliars per Heurístiques d'Ordenació ---
-    
-    protected boolean isKiller(int ply, Point p) {
+    protected boolean isKiller(int ply, int move) {
         if (ply >= killerMoves.length) return false;
-        if (killerMoves[ply][0] != null && killerMoves[ply][0].equals(p)) return true;
-        return killerMoves[ply][1] != null && killerMoves[ply][1].equals(p);
+        return killerMoves[ply][0] == move || killerMoves[ply][1] == move;
     }
 
-    protected void storeKiller(int ply, Point p) {
-        if (ply >= killerMoves.length) return;
-        if (killerMoves[ply][0] != null && killerMoves[ply][0].equals(p)) return;
+    protected void storeKiller(int ply, int move) {
+        ensurePly(ply);
+        if (killerMoves[ply][0] == move) return;
         killerMoves[ply][1] = killerMoves[ply][0];
-        killerMoves[ply][0] = p;
+        killerMoves[ply][0] = move;
     }
 
-    protected void updateHistory(Point p, int depth) {
-        if (p.x < maxBoardDim && p.y < maxBoardDim) {
-            historyHeuristic[p.x][p.y] += depth * depth;
-            if (historyHeuristic[p.x][p.y] > 10000000) { 
-                 for(int i=0; i<maxBoardDim; i++) 
-                     for(int j=0; j<maxBoardDim; j++) historyHeuristic[i][j] /= 2;
-            }
+    protected void updateHistory(int move, int depth) {
+        historyHeuristic[move] += depth * depth;
+        if (historyHeuristic[move] > 10000000) { 
+            for (int i = 0; i < historyHeuristic.length; i++) historyHeuristic[i] /= 2;
         }
     }
     
+    /**
+     * Clau de la Taula de Transposició per a un estat: la Zobrist combinada
+     * amb el jugador arrel.
+     * * @param s Estat del joc.
+     * @return Clau per consultar i guardar a la TT.
+     */
+    protected long ttKey(MyStatus s) {
+        long key = s.getHash();
+        return (rootPlayer == PlayerType.PLAYER2) ? key ^ ROOT_PLAYER2_KEY : key;
+    }
+
+    /**
+     * Completa la seqüència d'un torn fins a la jugada que no captura.
+     * <p>
+     * La TT només guarda el primer moviment de cada posició, de manera que quan una
+     * captura encadenada es resol amb un encert de la TT la seqüència retornada per la
+     * cerca queda tallada. Aquí es continua seguint els moviments guardats a la TT
+     * (o la primera jugada legal si no n'hi ha) fins que el torn acaba.
+     * </p>
+     * <p>
+     * Aquí és on les jugades (índexs de bit) es tornen a convertir en punts.
+     * </p>
+     * * @param root Estat a l'arrel de la cerca (no es modifica).
+     * @param sequence Seqüència trobada per la cerca (pot ser null o incompleta).
+     * @return Seqüència legal que acaba el torn (buida si no n'hi ha cap).
+     */
+    protected List<Point> completeTurn(MyStatus root, int[] sequence) {
+        List<Point> result = new ArrayList<>();
+        MyStatus aux = new MyStatus(root);
+        PlayerType me = aux.getCurrentPlayer();
+        int[] moves = new int[aux.getCellCount()];
+
+        if (sequence != null) {
+            for (int move : sequence) {
+                if (aux.isGameOver() || aux.getCurrentPlayer() != me) break;
+                if (!contains(moves, aux.generateMoves(moves), move)) break;
+                aux.makeMove(move);
+                result.add(aux.toPoint(move));
+            }
+        }
+
+        while (!result.isEmpty() && !aux.isGameOver() && aux.getCurrentPlayer() == me) {
+            int n = aux.generateMoves(moves);
+            if (n == 0) break;
+            int next = ttMoveOrFirst(aux, moves, n);
+            aux.makeMove(next);
+            result.add(aux.toPoint(next));
+        }
+        return result;
+    }
+
+    /**
+     * Versió de {@link #completeTurn(MyStatus, int[])} per a una seqüència de punts.
+     * * @param root Estat a l'arrel de la cerca (no es modifica).
+     * @param sequence Seqüència de punts (pot ser incompleta).
+     * @return Seqüència legal que acaba el torn (buida si no n'hi ha cap).
+     */
+    protected List<Point> completeTurn(MyStatus root, List<Point> sequence) {
+        int[] bits = new int[sequence.size()];
+        for (int i = 0; i < bits.length; i++) bits[i] = root.toBit(sequence.get(i));
+        return completeTurn(root, bits);
+    }
+
+    /**
+     * Moviment guardat a la TT per a l'estat, si és legal; si no, el primer de la llista.
+     * * @param s Estat del joc.
+     * @param moves Moviments legals de l'estat.
+     * @param n Nombre de moviments (com a mínim 1).
+     * @return Moviment escollit.
+     */
+    protected int ttMoveOrFirst(MyStatus s, int[] moves, int n) {
+        long entry = tt.probe(ttKey(s));
+        if (TranspositionTable.isValid(entry) && contains(moves, n, TranspositionTable.move(entry))) {
+            return TranspositionTable.move(entry);
+        }
+        return moves[0];
+    }
+
+    private static boolean contains(int[] moves, int n, int move) {
+        for (int i = 0; i < n; i++) {
+            if (moves[i] == move) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Seqüència d'una jugada seguida, si el torn continua, de la del fill.
+     * * @param move Jugada del node.
+     * @param tail Seqüència del fill (null si no n'hi ha o el torn ha canviat).
+     * @return Seqüència nova.
+     */
+    protected static int[] line(int move, int[] tail) {
+        if (tail == null) return new int[] { move };
+        int[] seq = new int[tail.length + 1];
+        seq[0] = move;
+        System.arraycopy(tail, 0, seq, 1, tail.length);
+        return seq;
+    }
+
     /**
      * Genera una seqüència de moviments vàlida de manera segura.
      * S'utilitza com a sistema de recuperació (fallback) quan el temps s'esgota
@@ -442,11 +1410,13 @@ public class PlayerMiniMax implements IPlayer, IAuto {
     }
 
     /**
-     * Classe interna per emmagatzemar el resultat de la cerca.
+     * Puntuació i seqüència d'un node, ja copiada fora de la taula de variació principal.
+     * La recursió no en crea: només l'arrel de l'IDS i els nodes de repartiment de la
+     * cerca paral·lela, que han de conservar la seqüència mentre es cerquen altres nodes.
      */
     protected static class Result {
         int score;
-        List<Point> sequence;
-        public Result(int s, List<Point> seq) { score = s; sequence = seq; }
+        int[] sequence;   // Jugades (índexs de bit) del torn a partir del node
+        public Result(int s, int[] seq) { score = s; sequence = seq; }
     }
 }
\ No newline at end of file
@@ -1,9 +1,13 @@
 package edu.upc.epsevg.prop.oust.players.OrtizSerralta;
 
 import edu.upc.epsevg.prop.oust.GameStatus;
+import edu.upc.epsevg.prop.oust.IPonder;
+import edu.upc.epsevg.prop.oust.MyStatus;
 import edu.upc.epsevg.prop.oust.PlayerMove;
+import edu.upc.epsevg.prop.oust.PlayerType;
 import edu.upc.epsevg.prop.oust.SearchType;
 import java.awt.Point;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -11,11 +15,96 @@ import java.util.List;
  * <p>
  * Aquesta classe estén {@link PlayerMiniMax} per afegir la gestió del temps.
  * Realitza cerques incrementals en profunditat fins que s'esgota el temps
- * disponible (5 segons).
+ * disponible (5 segons per defecte).
+ * </p>
+ * <p>
+ * El temps el controla el propi motor amb un {@link TimeManager}: un termini monòton
+ * amb marge de seguretat, i la decisió de començar o no cada iteració segons la seva
+ * durada prevista, l'estabilitat del millor moviment i les caigudes de puntuació. El
+ * {@link #timeout()} extern es continua respectant com a darrera barrera.
+ * </p>
+ * <p>
+ * Les jugades de l'arrel es guarden en una llista que es conserva entre iteracions,
+ * amb la puntuació, els nodes del subarbre i la profunditat a què s'ha resolt cada
+ * una. Si el temps s'acaba a mitja iteració, la millor jugada resolta a la profunditat
+ * nova (ja sigui la de la PV o una que l'ha superat) substitueix la de la iteració
+ * anterior. Cada iteració comença per la millor jugada i continua per les que més
+ * nodes van necessitar a la iteració anterior.
+ * </p>
+ * <p>
+ * Amb la reflexió activada ({@link #setPondering(boolean)}), després de cada moviment
+ * el jugador preveu la resposta del rival (seguint la TT) i continua pensant la
+ * posició resultant en un fil de fons. Si la posició real coincideix amb la prevista,
+ * la mateixa cerca continua amb el temps comptat des d'aquell moment; si no, s'atura
+ * i es fa una cerca nova que aprofita la TT ja escalfada.
+ * </p>
+ * <p>
+ * Si s'hi afegeix un llibre d'obertures ({@link #addOpeningBook(OpeningBook)}), les
+ * posicions que hi són es juguen directament del llibre, sense cercar. El
+ * {@link PlayerMove} retornat porta la profunditat i els nodes de la cerca amb què es
+ * va generar l'entrada.
+ * </p>
+ * <p>
+ * Quan queden poques caselles buides ({@link #setEndgameThreshold(int)}) primer
+ * s'intenta resoldre la posició de manera exacta amb {@link EndgameSolver}, amb la
+ * meitat del temps. Si el resultat queda demostrat es juga la seqüència òptima; si
+ * no, la cerca habitual continua amb el temps que queda.
+ * </p>
+ * <p>
+ * Opcionalment la cerca es reparteix entre diversos fils (Lazy SMP): el fil principal
+ * fa l'IDS habitual i cada fil auxiliar fa el seu propi aprofundiment iteratiu sobre
+ * una còpia de l'estat, amb killers i història propis, compartint només la Taula de
+ * Transposició. Els fils auxiliars comencen a profunditats diferents perquè no
+ * recorrin exactament el mateix arbre; la informació que deixen a la TT accelera la
+ * cerca del fil principal.
  * </p>
  * @author OrtizSerralta
  */
-public class PlayerMiniMaxIDS extends PlayerMiniMax {
+public class PlayerMiniMaxIDS extends PlayerMiniMax implements IPonder {
+
+    /** Temps per moviment per defecte en mil·lisegons. */
+    public static final long DEFAULT_TIME_LIMIT_MS = 5000;
+    /** Marge de seguretat per defecte en mil·lisegons. */
+    public static final long DEFAULT_SAFETY_MARGIN_MS = 300;
+
+    /** Fils auxiliars (threads - 1); es reutilitzen entre moviments. */
+    private final Helper[] helpers;
+
+    /** Gestor del temps de cada moviment. */
+    private final TimeManager timeManager;
+
+    /** Jugades de l'arrel del moviment en curs, ordenades per a la propera iteració. */
+    private List<RootMove> rootMoves = new ArrayList<>();
+    /** Iteracions interrompudes que han millorat la jugada retornada (estadística). */
+    protected long partialIterationsUsed;
+    /** Factor de ramificació efectiu de l'últim moviment (0 si no s'ha cercat). */
+    protected double lastBranchingFactor;
+
+    // --- Reflexió en el torn del rival ---
+    private boolean ponderEnabled;
+    private Thread ponderThread;
+    private long ponderHash;
+    private PlayerType ponderSide;
+    /** Instant de l'encert de la reflexió (0 mentre no n'hi ha). */
+    private volatile long ponderHitNanos;
+    private volatile PlayerMove ponderResult;
+    protected long ponderHits;
+    protected long ponderMisses;
+
+    /** Caselles buides per defecte per sota de les quals s'intenta resoldre el final. */
+    public static final int DEFAULT_ENDGAME_THRESHOLD = 12;
+    /** Profunditat màxima del solucionador de finals (col·locacions). */
+    private static final int ENDGAME_MAX_PLIES = 64;
+
+    private int endgameThreshold = DEFAULT_ENDGAME_THRESHOLD;
+    private EndgameSolver solver;
+    private boolean lastMoveProven;
+    private int lastProvenValue;
+    protected long provenMoves;
+
+    /** Llibres d'obertures indexats per mida del tauler. */
+    private final OpeningBook[] books = new OpeningBook[16];
+    protected long bookHits;
 
     /**
      * Constructor buit (Requerit per l'especificació).
@@ -23,22 +112,297 @@ public class PlayerMiniMaxIDS extends PlayerMiniMax {
      * la profunditat fixa a -1 per habilitar el mode IDS.
      */
     public PlayerMiniMaxIDS() {
-        super(); // Crida al constructor protegit de la classe pare
+        this(DEFAULT_TT_SIZE_MB, 1);
+    }
+
+    /**
+     * Constructor amb la mida de la Taula de Transposició configurable.
+     * * @param ttSizeMB Memòria de la Taula de Transposició en MB.
+     */
+    public PlayerMiniMaxIDS(int ttSizeMB) {
+        this(ttSizeMB, 1);
+    }
+
+    /**
+     * Constructor amb la mida de la TT i el nombre de fils de cerca.
+     * * @param ttSizeMB Memòria de la Taula de Transposició en MB (compartida per tots els fils).
+     * @param threads Nombre de fils de cerca (1 per a la cerca seqüencial).
+     */
+    public PlayerMiniMaxIDS(int ttSizeMB, int threads) {
+        this(ttSizeMB, threads, DEFAULT_TIME_LIMIT_MS, DEFAULT_SAFETY_MARGIN_MS);
+    }
+
+    /**
+     * Constructor complet, amb el temps per moviment configurable.
+     * * @param ttSizeMB Memòria de la Taula de Transposició en MB (compartida per tots els fils).
+     * @param threads Nombre de fils de cerca (1 per a la cerca seqüencial).
+     * @param timeLimitMs Temps disponible per moviment en mil·lisegons.
+     * @param safetyMarginMs Marge reservat per retornar la jugada abans del límit.
+     */
+    public PlayerMiniMaxIDS(int ttSizeMB, int threads, long timeLimitMs, long safetyMarginMs) {
+        super(-1, ttSizeMB);
+        this.timeManager = new TimeManager(timeLimitMs, safetyMarginMs);
         this.name = "OrtizSerralta (Terminator)";
+        this.threads = Math.max(1, threads);
+        this.helpers = new Helper[this.threads - 1];
+        for (int i = 0; i < helpers.length; i++) helpers[i] = new Helper(tt, i + 1);
+    }
+
+    /**
+     * Notifica el timeout al fil principal i a tots els auxiliars.
+     */
+    @Override
+    public void timeout() {
+        super.timeout();
+        for (Helper h : helpers) h.timeout();
+    }
+
+    /**
+     * @return Gestor del temps del jugador.
+     */
+    public TimeManager getTimeManager() { return timeManager; }
+
+    /**
+     * @return Nombre d'iteracions interrompudes aprofitades des de la creació del jugador.
+     */
+    public long getPartialIterationsUsed() { return partialIterationsUsed; }
+
+    /**
+     * @return Factor de ramificació efectiu que ha mesurat el {@link TimeManager} en
+     * l'últim moviment (0 si ha sortit del llibre o del solucionador de finals).
+     */
+    public double getLastBranchingFactor() { return lastBranchingFactor; }
+
+    /**
+     * Activa o desactiva la reflexió durant el torn del rival (desactivada per defecte).
+     * * @param enabled Cert per pensar en segon pla.
+     */
+    public void setPondering(boolean enabled) {
+        this.ponderEnabled = enabled;
+        if (!enabled) stopPondering();
+    }
+
+    /**
+     * @return Vegades que la posició real ha coincidit amb la prevista.
+     */
+    public long getPonderHits() { return ponderHits; }
+
+    /**
+     * @return Vegades que la posició real no ha coincidit amb la prevista.
+     */
+    public long getPonderMisses() { return ponderMisses; }
+
+    /**
+     * Fixa el llindar del solucionador de finals.
+     * * @param emptyCells Caselles buides a partir de les quals s'intenta resoldre (0 el desactiva).
+     */
+    public void setEndgameThreshold(int emptyCells) {
+        this.endgameThreshold = emptyCells;
+    }
+
+    /**
+     * @return Cert si l'últim moviment prové d'una posició resolta de manera exacta.
+     */
+    public boolean isLastMoveProven() { return lastMoveProven; }
+
+    /**
+     * @return Valor demostrat de l'últim moviment resolt: positiu si guanya, negatiu si perd.
+     */
+    public int getLastProvenValue() { return lastProvenValue; }
+
+    /**
+     * @return Moviments jugats amb el resultat demostrat pel solucionador de finals.
+     */
+    public long getProvenMoves() { return provenMoves; }
+
+    /**
+     * Intenta resoldre el final de manera exacta amb la meitat del temps del moviment.
+     * * @param gs Estat actual del joc.
+     * @return Moviment òptim si la posició queda demostrada, o null.
+     */
+    private PlayerMove solveEndgame(GameStatus gs) {
+        if (endgameThreshold <= 0) return null;
+        MyStatus s = new MyStatus(gs);
+        int empty = s.getCellCount() - s.getStoneCount(PlayerType.PLAYER1) - s.getStoneCount(PlayerType.PLAYER2);
+        if (empty > endgameThreshold || s.isGameOver()) return null;
+
+        if (solver == null) solver = new EndgameSolver();
+        EndgameSolver.Solution sol = solver.solve(s, ENDGAME_MAX_PLIES, cancellation, timeManager.fractionDeadline(0.5));
+        if (!sol.proven || sol.sequence.isEmpty()) return null;
+        lastMoveProven = true;
+        lastProvenValue = sol.value;
+        provenMoves++;
+        return new PlayerMove(sol.sequence, sol.nodes, sol.depth, SearchType.MINIMAX_IDS);
+    }
+
+    /**
+     * Afegeix un llibre d'obertures (substitueix el que hi hagués per a la mateixa mida).
+     * * @param book Llibre obert amb {@link OpeningBook#open(java.nio.file.Path)}.
+     */
+    public void addOpeningBook(OpeningBook book) {
+        books[book.getSize()] = book;
+    }
+
+    /**
+     * @return Moviments jugats des del llibre d'obertures.
+     */
+    public long getBookHits() { return bookHits; }
+
+    /**
+     * Juga el torn des del llibre d'obertures si la posició hi és.
+     * <p>
+     * Les captures encadenades continuen consultant el llibre; si una posició
+     * intermèdia no hi és, el torn s'acaba amb {@link #completeTurn(MyStatus, List)}.
+     * </p>
+     * * @param gs Estat actual del joc.
+     * @return Moviment del llibre, o null si la posició no hi és.
+     */
+    private PlayerMove probeBook(GameStatus gs) {
+        OpeningBook book = (gs.getSize() < books.length) ? books[gs.getSize()] : null;
+        if (book == null) return null;
+        MyStatus s = new MyStatus(gs);
+        OpeningBook.Hit hit = book.lookup(s);
+        if (hit == null || !s.getMoves().contains(hit.move)) return null;
+
+        List<Point> sequence = new ArrayList<>();
+        int depth = hit.depth;
+        long nodes = 0;
+        MyStatus aux = new MyStatus(s);
+        while (hit != null && aux.getMoves().contains(hit.move)) {
+            sequence.add(hit.move);
+            nodes += hit.nodes;
+            aux.placeStone(hit.move);
+            if (aux.isGameOver() || aux.getCurrentPlayer() != s.getCurrentPlayer()) break;
+            hit = book.lookup(aux);
+        }
+        bookHits++;
+        return new PlayerMove(completeTurn(s, sequence), nodes, depth, SearchType.MINIMAX_IDS);
+    }
+
+    /**
+     * Preveu la resposta del rival i comença a pensar la posició resultant.
+     * * @param gs Posició després del nostre moviment (li toca al rival).
+     */
+    @Override
+    public void startPondering(GameStatus gs) {
+        stopPondering();
+        if (!ponderEnabled || gs.isGameOver()) return;
+        GameStatus predicted = predictReply(gs);
+        if (predicted == null) return;
+
+        ponderHash = new MyStatus(predicted).getHash();
+        ponderSide = predicted.getCurrentPlayer();
+        ponderHitNanos = 0;
+        ponderResult = null;
+        timeManager.startPondering();
+        cancellation.reset(CancellationToken.NO_DEADLINE);
+
+        ponderThread = new Thread(() -> ponderResult = search(predicted), "OrtizSerralta-ponder");
+        ponderThread.setDaemon(true);
+        ponderThread.start();
+    }
+
+    /**
+     * Atura la reflexió en curs i n'espera el final.
+     */
+    @Override
+    public void stopPondering() {
+        Thread t = ponderThread;
+        if (t == null) return;
+        ponderThread = null;
+        timeout();
+        join(t);
+    }
+
+    /**
+     * Posició prevista després del torn del rival: se segueixen els moviments de la TT
+     * (o el primer legal) fins que el torn torna a ser nostre.
+     * * @param gs Posició amb el torn del rival.
+     * @return Posició prevista, o null si la partida s'acaba abans.
+     */
+    private GameStatus predictReply(GameStatus gs) {
+        GameStatus next = new GameStatus(gs);
+        MyStatus aux = new MyStatus(gs);
+        PlayerType opponent = aux.getCurrentPlayer();
+        int[] moves = new int[aux.getCellCount()];
+        while (!aux.isGameOver() && aux.getCurrentPlayer() == opponent) {
+            int n = aux.generateMoves(moves);
+            if (n == 0) return null;
+            int move = ttMoveOrFirst(aux, moves, n);
+            next.placeStone(aux.toPoint(move));
+            aux.makeMove(move);
+        }
+        return aux.isGameOver() ? null : next;
+    }
+
+    /**
+     * Resol la reflexió en curs quan arriba la posició real.
+     * * @param gs Posició real.
+     * @return Moviment de la reflexió si la posició coincideix, o null si cal cercar.
+     */
+    private PlayerMove finishPondering(GameStatus gs) {
+        Thread t = ponderThread;
+        if (t == null) return null;
+        if (gs.getCurrentPlayer() != ponderSide || new MyStatus(gs).getHash() != ponderHash) {
+            ponderMisses++;
+            stopPondering();
+            return null;
+        }
+        // Encert: la cerca continua, però ara amb el termini del moviment real
+        ponderHits++;
+        ponderThread = null;
+        long now = System.nanoTime();
+        cancellation.setDeadline(timeManager.deadlineFrom(now));
+        ponderHitNanos = now;
+        join(t);
+        return ponderResult;
+    }
+
+    private static void join(Thread t) {
+        try {
+            t.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 
     /**
      * Executa l'algorisme IDS per trobar el millor moviment dins del temps límit.
      * Utilitza finestres d'aspiració (Aspiration Windows) basades en la puntuació
      * de la iteració anterior per accelerar la cerca.
-     * * @param s Estat actual del joc.
+     * * @param gs Estat actual del joc.
      * @return El millor moviment trobat.
      */
     @Override
-    public PlayerMove move(GameStatus s) {
+    public PlayerMove move(GameStatus gs) {
+        lastMoveProven = false;
+        PlayerMove move = finishPondering(gs);
+        if (move == null) {
+            // La reflexió encertada ja deixa el seu factor en acabar la cerca
+            lastBranchingFactor = 0;
+            move = probeBook(gs);
+        }
+        if (move == null) {
+            timeManager.start();
+            cancellation.reset(timeManager.getHardDeadline());
+            move = solveEndgame(gs);
+            if (move == null) move = search(gs);
+        }
+        recordStopLatency();
+        return move;
+    }
+
+    /**
+     * Bucle IDS amb el temps ja configurat (moviment normal o reflexió).
+     * * @param gs Estat del joc.
+     * @return El millor moviment trobat.
+     */
+    private PlayerMove search(GameStatus gs) {
+        MyStatus s = new MyStatus(gs);
         this.timedOut = false;
         this.nodesExplored = 0;
         
+        tt.newSearch();
         super.initStructures(s);
 
         List<Point> bestMoveSequence = null;
@@ -46,14 +410,19 @@ public class PlayerMiniMaxIDS extends PlayerMiniMax {
         int previousScore = 0;
 
         // Optimització: Si només hi ha un moviment possible, el retornem immediatament
-        if (s.getMoves().size() == 1) {
-            return new PlayerMove(getSafeSequence(s), 0, 0, SearchType.MINIMAX_IDS);
+        if (s.countMoves() == 1) {
+            return new PlayerMove(getSafeSequence(gs), 0, 0, SearchType.MINIMAX_IDS);
         }
 
+        initRootMoves(s);
+        Thread[] workers = startHelpers(s);
+
         // Bucle d'aprofundiment iteratiu
-        while (!timedOut) {
+        while (!pollCancellation()) {
             int alpha = Integer.MIN_VALUE;
             int beta = Integer.MAX_VALUE;
+            long iterationStart = System.nanoTime();
+            long nodesBefore = nodesExplored;
 
             // Finestres d'aspiració: estretim la finestra al voltant de la puntuació prèvia
             if (currentMaxDepth > 2 && bestMoveSequence != null) {
@@ -62,37 +431,269 @@ public class PlayerMiniMaxIDS extends PlayerMiniMax {
                 beta = previousScore + window;
             }
 
-            // Crida al motor Minimax de la classe pare
-            Result res = super.minimax(s, currentMaxDepth, alpha, beta, 0, true);
+            // Cerca de l'arrel sobre la llista persistent de jugades
+            Result res = searchRoot(s, currentMaxDepth, alpha, beta);
 
             // Si el resultat cau fora de la finestra, repetim la cerca amb finestra completa
             if (!timedOut && currentMaxDepth > 2 && bestMoveSequence != null) {
                 if (res.score <= alpha || res.score >= beta) {
-                    res = super.minimax(s, currentMaxDepth, Integer.MIN_VALUE, Integer.MAX_VALUE, 0, true);
+                    res = searchRoot(s, currentMaxDepth, Integer.MIN_VALUE, Integer.MAX_VALUE);
                 }
             }
 
+            // Iteració interrompuda: aprofitem la millor jugada que s'hi hagi resolt
+            if (timedOut && res.sequence != null) {
+                bestMoveSequence = completeTurn(s, res.sequence);
+                partialIterationsUsed++;
+            }
+
             // Si la iteració s'ha completat sense timeout, guardem el resultat
             if (!timedOut) {
-                if (res.sequence != null && !res.sequence.isEmpty()) {
-                    bestMoveSequence = res.sequence;
+                if (res.sequence != null && res.sequence.length > 0) {
+                    bestMoveSequence = completeTurn(s, res.sequence);
                     previousScore = res.score;
                 }
                 
                 // Si trobem una victòria assegurada, tallem per estalviar temps
-                if (res.score > 900000) break;
+                if (res.score > WIN_THRESHOLD) break;
                 
                 currentMaxDepth++;
                 // Límit de seguretat de profunditat
                 if (currentMaxDepth > 60) break;
+
+                // Si la reflexió ha encertat, el temps compta des de l'encert
+                long hit = ponderHitNanos;
+                if (hit != 0 && timeManager.isPondering()) timeManager.ponderHit(hit);
+
+                // No comencem una iteració que no acabaria a temps
+                int best = (bestMoveSequence != null) ? s.toBit(bestMoveSequence.get(0)) : -1;
+                timeManager.iterationDone(nodesExplored - nodesBefore, System.nanoTime() - iterationStart,
+                                          best, previousScore);
+                if (!timeManager.shouldStartNext()) break;
+            }
+        }
+
+        lastBranchingFactor = timeManager.getEffectiveBranchingFactor();
+
+        // Aturem els fils auxiliars i ens quedem amb la iteració completa més profunda
+        stopHelpers(workers);
+        long totalNodes = nodesExplored;
+        int completedDepth = currentMaxDepth - 1;
+        for (Helper h : helpers) {
+            totalNodes += h.nodesExplored;
+            List<Point> seq = h.completedSequence;
+            if (seq != null && h.completedDepth > completedDepth) {
+                completedDepth = h.completedDepth;
+                bestMoveSequence = seq;
             }
         }
 
         // Sistema de recuperació: Si no tenim cap moviment vàlid, en generem un de segur
         if (bestMoveSequence == null || bestMoveSequence.isEmpty()) {
-             bestMoveSequence = getSafeSequence(s);
+             bestMoveSequence = getSafeSequence(gs);
+        }
+
+        return new PlayerMove(bestMoveSequence, totalNodes, completedDepth, SearchType.MINIMAX_IDS);
+    }
+
+    /**
+     * Construeix la llista de jugades de l'arrel, ordenades amb la jugada de la TT
+     * (si n'hi ha) i les heurístiques habituals.
+     * * @param s Estat arrel.
+     */
+    private void initRootMoves(MyStatus s) {
+        long entry = tt.probe(ttKey(s));
+        int ttMove = TranspositionTable.isValid(entry) ? TranspositionTable.move(entry) : TranspositionTable.NO_MOVE;
+        MovePicker moves = movePicker(0);
+        int n = moves.generate(s);
+        orderMoves(moves, ttMove, 0);
+        rootMoves = new ArrayList<>(n);
+        for (int k = 0; k < n; k++) rootMoves.add(new RootMove(moves.next(k)));
+    }
+
+    /**
+     * Cerca PVS del node arrel sobre {@link #rootMoves}.
+     * <p>
+     * Cada jugada resolta sense timeout hi deixa la puntuació, els nodes del subarbre i
+     * la profunditat. Si la cerca s'interromp, només es retorna una seqüència quan la
+     * millor jugada resolta supera la cota inferior de la finestra: llavors la seva
+     * puntuació és exacta (o una cota inferior per sobre de beta) i és almenys tan
+     * bona com la que havia guanyat la iteració anterior.
+     * </p>
+     * * @param s Estat arrel (es restaura abans de retornar).
+     * @param depth Profunditat de la iteració.
+     * @param alpha Cota inferior de la finestra.
+     * @param beta Cota superior de la finestra.
+     * @return Millor puntuació i seqüència; seqüència null si la iteració s'ha interromput sense res aprofitable.
+     */
+    private Result searchRoot(MyStatus s, int depth, int alpha, int beta) {
+        nodesExplored++;
+        int originalAlpha = alpha;
+        PlayerType mover = s.getCurrentPlayer();
+        RootMove best = null;
+        boolean firstMove = true;
+
+        for (RootMove rm : rootMoves) {
+            if (stopRequested()) break;
+            long nodesBefore = nodesExplored;
+            s.makeMove(rm.move);
+            boolean sameTurn = (s.getCurrentPlayer() == mover);
+            int nextDepth = sameTurn ? chainDepth(depth * ONE_PLY, s) : (depth - 1) * ONE_PLY;
+
+            int childScore;
+            if (firstMove || sameTurn) {
+                childScore = minimax(s, nextDepth, alpha, beta, 1, true);
+            } else {
+                childScore = minimax(s, nextDepth, alpha, alpha + 1, 1, true);
+                if (!timedOut && childScore > alpha && childScore < beta) {
+                    childScore = minimax(s, nextDepth, alpha, beta, 1, true);
+                }
+            }
+            s.unmakeMove();
+            if (timedOut) break;
+            firstMove = false;
+
+            rm.score = childScore;
+            rm.nodes = nodesExplored - nodesBefore;
+            rm.searchedDepth = depth;
+            // Només l'arrel copia la variació: la del fill és a la fila del ply 1
+            rm.sequence = line(rm.move, sameTurn ? pvLine(1) : null);
+
+            if (best == null || rm.score > best.score) best = rm;
+            alpha = Math.max(alpha, rm.score);
+            if (alpha >= beta) break;
+        }
+
+        if (best == null) return new Result(0, null);
+        // Si falla per sota, totes les puntuacions són cotes superiors i no ordenen res: la
+        // jugada de la iteració anterior es queda al davant i és la primera que es resol a
+        // la re-cerca, de manera que una re-cerca interrompuda no en pot tornar cap altra
+        // sense haver-la superat
+        if (best.score > originalAlpha) sortRootMoves(best);
+
+        if (timedOut) {
+            return best.score > originalAlpha ? new Result(best.score, best.sequence) : new Result(0, null);
         }
 
-        return new PlayerMove(bestMoveSequence, nodesExplored, currentMaxDepth - 1, SearchType.MINIMAX_IDS);
+        int flag;
+        if (best.score <= originalAlpha) flag = FLAG_UPPERBOUND;
+        else if (best.score >= beta) flag = FLAG_LOWERBOUND;
+        else flag = FLAG_EXACT;
+        tt.store(ttKey(s), scoreToTT(best.score, 0), depth * ONE_PLY, flag, best.move);
+        return new Result(best.score, best.sequence);
+    }
+
+    /**
+     * Ordena les jugades de l'arrel per a la iteració següent: la millor primer i la
+     * resta segons els nodes que va necessitar el seu subarbre (més esforç, més
+     * probable que sigui una alternativa seriosa).
+     * * @param best Millor jugada de la darrera cerca.
+     */
+    private void sortRootMoves(RootMove best) {
+        rootMoves.sort((a, b) -> {
+            if (a == best) return -1;
+            if (b == best) return 1;
+            return Long.compare(b.nodes, a.nodes);
+        });
+    }
+
+    /**
+     * Jugada de l'arrel amb la informació que es conserva entre iteracions.
+     */
+    private static final class RootMove {
+        final int move;
+        /** Puntuació de la darrera cerca completa (cota superior si va fallar per sota). */
+        int score;
+        /** Nodes del subarbre a la darrera cerca completa. */
+        long nodes;
+        /** Profunditat a què s'ha resolt per última vegada (0 si mai). */
+        int searchedDepth;
+        /** Seqüència del torn que comença amb aquesta jugada (índexs de bit). */
+        int[] sequence;
+
+        RootMove(int move) {
+            this.move = move;
+        }
+    }
+
+    /**
+     * Posa en marxa els fils auxiliars sobre còpies de l'estat arrel.
+     * * @param s Estat arrel (no es modifica).
+     * @return Fils creats (buit si la cerca és seqüencial).
+     */
+    private Thread[] startHelpers(MyStatus s) {
+        Thread[] workers = new Thread[helpers.length];
+        for (int i = 0; i < helpers.length; i++) {
+            helpers[i].copySearchSettings(this);
+            helpers[i].prepare(s);
+            workers[i] = new Thread(helpers[i], "OrtizSerralta-helper-" + (i + 1));
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+        return workers;
+    }
+
+    /**
+     * Atura els fils auxiliars i n'espera la finalització.
+     * * @param workers Fils retornats per {@link #startHelpers(MyStatus)}.
+     */
+    private void stopHelpers(Thread[] workers) {
+        for (Helper h : helpers) h.timeout();
+        for (Thread t : workers) {
+            try {
+                t.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Fil auxiliar de la cerca Lazy SMP.
+     * <p>
+     * Fa aprofundiment iteratiu amb finestra completa sobre la seva pròpia còpia de
+     * l'estat. Els fils senars comencen un nivell més avall que els parells per
+     * repartir-se les profunditats. Quan completa una iteració en publica la
+     * seqüència, que el fil principal pot fer servir si és més profunda que la seva.
+     * </p>
+     */
+    private static class Helper extends PlayerMiniMax implements Runnable {
+
+        private final int id;
+        private MyStatus root;
+        volatile int completedDepth;
+        volatile List<Point> completedSequence;
+
+        Helper(TranspositionTable sharedTT, int id) {
+            super(sharedTT);
+            this.id = id;
+        }
+
+        void prepare(MyStatus s) {
+            root = new MyStatus(s);
+            timedOut = false;
+            cancellation.reset(CancellationToken.NO_DEADLINE);
+            nodesExplored = 0;
+            completedDepth = 0;
+            completedSequence = null;
+            initStructures(root);
+        }
+
+        @Override
+        public void run() {
+            int depth = 1 + (id & 1);
+            while (!pollCancellation() && depth <= 60) {
+                int score = minimax(root, depth * ONE_PLY, Integer.MIN_VALUE, Integer.MAX_VALUE, 0, true);
+                if (timedOut) break;
+                int[] line = pvLine(0);
+                if (line != null) {
+                    completedSequence = completeTurn(root, line);
+                    completedDepth = depth;
+                }
+                if (score > WIN_THRESHOLD) break;
+                depth++;
+            }
+        }
     }
 }
\ No newline at end of file
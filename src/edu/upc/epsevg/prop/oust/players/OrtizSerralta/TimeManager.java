@@ -0,0 +1,189 @@
+package edu.upc.epsevg.prop.oust.players.OrtizSerralta;
+
+/**
+ * Gestor del temps de reflexió de l'IDS.
+ * <p>
+ * Treballa amb un termini monòton ({@link System#nanoTime()}) propi del motor: el
+ * límit dur és el temps disponible per moviment menys un marge de seguretat. A més
+ * hi ha un límit tou a partir del qual no es comença cap iteració nova, i que
+ * s'ajusta segons dos senyals:
+ * </p>
+ * <ul>
+ * <li><b>Estabilitat:</b> si el millor moviment no canvia en diverses iteracions
+ * seguides, el límit tou es redueix.</li>
+ * <li><b>Caiguda de puntuació:</b> si la puntuació baixa respecte de la iteració
+ * anterior, el límit tou s'allarga (sense passar mai del límit dur).</li>
+ * </ul>
+ * <p>
+ * Abans de començar la profunditat d + 1 es prediu la seva durada multiplicant la de
+ * la iteració d pel factor de ramificació efectiu mesurat (nodes(d) / nodes(d-1),
+ * suavitzat). Si la predicció no cap en el temps que queda fins al límit dur, la
+ * iteració no es comença: seria feina perduda.
+ * </p>
+ * <p>
+ * Durant la reflexió en el torn del rival ({@link #startPondering()}) no hi ha cap
+ * límit; quan arriba la posició prevista, {@link #ponderHit(long)} fixa els límits a
+ * partir d'aquell instant i conserva les estadístiques de les iteracions fetes.
+ * </p>
+ * @author OrtizSerralta
+ */
+public class TimeManager {
+
+    /** Fracció del temps útil que es fa servir com a límit tou de partida. */
+    private static final double BASE_SOFT_FRACTION = 0.6;
+    /** Iteracions seguides amb el mateix millor moviment per considerar-lo estable. */
+    private static final int STABLE_ITERATIONS = 3;
+    /** Caiguda de puntuació (en unitats de l'heurística) que allarga el temps. */
+    private static final int SCORE_DROP = 100;
+
+    private final long usableNanos;
+
+    private long start;
+    private long hardDeadline;
+    private long softDeadline;
+    private double softFraction;
+    private boolean pondering;
+
+    private long lastNodes;
+    private long lastNanos;
+    private double ebf;
+    private int lastBest = -1;
+    private int stableCount;
+    private boolean hasScore;
+    private int lastScore;
+
+    /**
+     * @param timeLimitMs Temps disponible per moviment en mil·lisegons.
+     * @param safetyMarginMs Marge que es reserva per retornar la jugada a temps.
+     */
+    public TimeManager(long timeLimitMs, long safetyMarginMs) {
+        long budgetNanos = Math.max(1, timeLimitMs) * 1_000_000L;
+        long marginNanos = Math.max(0, safetyMarginMs) * 1_000_000L;
+        this.usableNanos = Math.max(budgetNanos / 10, budgetNanos - marginNanos);
+    }
+
+    /**
+     * Comença a comptar el temps d'un moviment nou.
+     */
+    public void start() {
+        reset();
+        pondering = false;
+        setLimits(System.nanoTime());
+    }
+
+    /**
+     * Comença una reflexió sense límit de temps (torn del rival).
+     */
+    public void startPondering() {
+        reset();
+        pondering = true;
+        start = System.nanoTime();
+    }
+
+    /**
+     * La posició prevista ha arribat: a partir d'ara compten els límits normals.
+     * @param hitNanos Instant de l'encert ({@link System#nanoTime()}).
+     */
+    public void ponderHit(long hitNanos) {
+        pondering = false;
+        setLimits(hitNanos);
+    }
+
+    /**
+     * @return Cert mentre es pensa sense límit en el torn del rival.
+     */
+    public boolean isPondering() {
+        return pondering;
+    }
+
+    /**
+     * Límit dur d'un moviment que comenci en l'instant indicat.
+     * @param startNanos Inici del moviment ({@link System#nanoTime()}).
+     * @return Límit dur corresponent.
+     */
+    public long deadlineFrom(long startNanos) {
+        return startNanos + usableNanos;
+    }
+
+    /**
+     * Instant en què s'ha consumit una fracció del temps útil del moviment en curs.
+     * @param fraction Fracció entre 0 i 1.
+     * @return Instant corresponent ({@link System#nanoTime()}).
+     */
+    public long fractionDeadline(double fraction) {
+        return start + (long) (usableNanos * fraction);
+    }
+
+    private void setLimits(long startNanos) {
+        start = startNanos;
+        hardDeadline = start + usableNanos;
+        softDeadline = start + (long) (usableNanos * softFraction);
+    }
+
+    private void reset() {
+        softFraction = BASE_SOFT_FRACTION;
+        lastNodes = 0;
+        lastNanos = 0;
+        ebf = 0;
+        lastBest = -1;
+        stableCount = 0;
+        hasScore = false;
+    }
+
+    /**
+     * Registra una iteració completada i ajusta el límit tou.
+     * @param nodes Nodes explorats per la iteració.
+     * @param nanos Durada de la iteració.
+     * @param bestMove Identificador del millor moviment (p. ex. índex de casella), -1 si no n'hi ha.
+     * @param score Puntuació de la iteració.
+     */
+    public void iterationDone(long nodes, long nanos, int bestMove, int score) {
+        if (lastNodes > 0 && nodes > 0) {
+            double ratio = (double) nodes / lastNodes;
+            ebf = (ebf == 0) ? ratio : 0.5 * ebf + 0.5 * ratio;
+        }
+        lastNodes = nodes;
+        lastNanos = nanos;
+
+        stableCount = (bestMove == lastBest) ? stableCount + 1 : 0;
+        lastBest = bestMove;
+
+        double fraction = BASE_SOFT_FRACTION;
+        if (stableCount >= STABLE_ITERATIONS) fraction *= 0.5;
+        if (hasScore && score < lastScore - SCORE_DROP) fraction *= 1.6;
+        softFraction = Math.min(1.0, fraction);
+        softDeadline = start + (long) (usableNanos * softFraction);
+        hasScore = true;
+        lastScore = score;
+    }
+
+    /**
+     * Decideix si val la pena començar la iteració següent.
+     * @return Cert si la iteració prevista cap abans del límit dur i no s'ha superat el tou.
+     */
+    public boolean shouldStartNext() {
+        if (pondering) return true;
+        long now = System.nanoTime();
+        if (now >= softDeadline) return false;
+        return now + predictNextNanos() < hardDeadline;
+    }
+
+    /**
+     * @return Durada prevista de la iteració següent (0 si encara no hi ha prou dades).
+     */
+    public long predictNextNanos() {
+        if (lastNanos == 0) return 0;
+        double factor = (ebf > 0) ? ebf : 1.0;
+        return (long) (lastNanos * factor);
+    }
+
+    /** @return Límit dur del moviment en curs, en temps de {@link System#nanoTime()}. */
+    public long getHardDeadline() {
+        return hardDeadline;
+    }
+
+    /** @return Factor de ramificació efectiu mesurat (0 si encara no n'hi ha). */
+    public double getEffectiveBranchingFactor() {
+        return ebf;
+    }
+}
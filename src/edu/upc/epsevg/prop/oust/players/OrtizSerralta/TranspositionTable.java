@@ -0,0 +1,165 @@
+package edu.upc.epsevg.prop.oust.players.OrtizSerralta;
+
+/**
+ * Taula de Transposició empaquetada en vectors primitius.
+ * <p>
+ * Cada entrada ocupa dues paraules {@code long}: la clau Zobrist i una paraula de
+ * dades amb la puntuació, el millor moviment (índex de casella), la profunditat,
+ * el tipus de cota i la generació. Les entrades s'agrupen en cubetes de
+ * {@link #SLOTS} posicions: la primera es reemplaça preferint la profunditat i
+ * la segona es reemplaça sempre.
+ * </p>
+ * <p>
+ * La generació s'incrementa a cada cerca nova ({@link #newSearch()}); les entrades
+ * d'altres generacions es consideren velles i es reemplacen primer, de manera que
+ * el contingut de partides anteriors no s'acumula a la taula.
+ * </p>
+ * <p>
+ * La taula es pot compartir entre fils sense bloquejos: a la primera paraula es
+ * guarda {@code clau XOR dades}. Si dos fils escriuen la mateixa posició alhora i
+ * la lectura barreja la clau d'un amb les dades de l'altre, la verificació
+ * {@code (paraula0 XOR dades) == clau} falla i l'entrada es tracta com absent.
+ * </p>
+ * <p>Format de la paraula de dades:</p>
+ * <ul>
+ * <li>bits 0-31: puntuació</li>
+ * <li>bits 32-47: moviment + 1 (0 indica que no n'hi ha)</li>
+ * <li>bits 48-55: profunditat (0-255)</li>
+ * <li>bits 56-57: tipus de cota</li>
+ * <li>bits 58-62: generació</li>
+ * <li>bit 63: entrada vàlida</li>
+ * </ul>
+ * @author OrtizSerralta
+ */
+public class TranspositionTable {
+
+    /** Nombre de posicions per cubeta. */
+    public static final int SLOTS = 2;
+
+    /** Valor de {@link #move(long)} quan l'entrada no té moviment. */
+    public static final int NO_MOVE = -1;
+
+    private static final int BYTES_PER_SLOT = 16;
+    private static final long VALID = 1L << 63;
+    private static final int GENERATION_MASK = 0x1F;
+
+    private final long[] keys;
+    private final long[] data;
+    private final int bucketMask;
+    private int generation;
+
+    /**
+     * Crea una taula que ocupa, com a màxim, la memòria indicada.
+     * El nombre de cubetes s'arrodoneix a la potència de 2 inferior.
+     * @param sizeMB Mida en megabytes (mínim 1).
+     */
+    public TranspositionTable(int sizeMB) {
+        long bytes = Math.max(1, sizeMB) * 1024L * 1024L;
+        long buckets = Long.highestOneBit(bytes / (BYTES_PER_SLOT * SLOTS));
+        if (buckets > (1 << 28)) buckets = 1 << 28;
+        this.keys = new long[(int) buckets * SLOTS];
+        this.data = new long[(int) buckets * SLOTS];
+        this.bucketMask = (int) buckets - 1;
+    }
+
+    /**
+     * Inicia una cerca nova: les entrades actuals passen a ser d'una generació anterior.
+     */
+    public void newSearch() {
+        generation = (generation + 1) & GENERATION_MASK;
+    }
+
+    /**
+     * Esborra tot el contingut de la taula.
+     */
+    public void clear() {
+        java.util.Arrays.fill(keys, 0L);
+        java.util.Arrays.fill(data, 0L);
+    }
+
+    /**
+     * @return Nombre total de posicions de la taula.
+     */
+    public int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * Busca una posició a la taula.
+     * @param key Clau Zobrist de l'estat.
+     * @return Paraula de dades de l'entrada, o 0 si no hi és (vegeu {@link #isValid(long)}).
+     */
+    public long probe(long key) {
+        int b = ((int) key & bucketMask) * SLOTS;
+        for (int i = b; i < b + SLOTS; i++) {
+            long d = data[i];
+            if ((keys[i] ^ d) == key && (d & VALID) != 0) return d;
+        }
+        return 0L;
+    }
+
+    /**
+     * Guarda el resultat de la cerca d'una posició.
+     * @param key Clau Zobrist de l'estat.
+     * @param score Puntuació.
+     * @param depth Profunditat de la cerca (es limita a 0-255).
+     * @param flag Tipus de cota.
+     * @param move Millor moviment (índex de casella) o {@link #NO_MOVE}.
+     */
+    public void store(long key, int score, int depth, int flag, int move) {
+        int b = ((int) key & bucketMask) * SLOTS;
+        int slot;
+        long old = data[b];
+        if ((keys[b] ^ old) == key || (old & VALID) == 0 || generation(old) != generation || depth >= depth(old)) {
+            slot = b;
+        } else {
+            slot = b + 1;
+        }
+        // Si la posició ja hi era i ara no tenim moviment, conservem l'anterior
+        long prev = data[slot];
+        if (move == NO_MOVE && (keys[slot] ^ prev) == key && (prev & VALID) != 0) move = move(prev);
+        long d = pack(score, depth, flag, move, generation);
+        keys[slot] = key ^ d;
+        data[slot] = d;
+    }
+
+    /**
+     * Percentatge de posicions ocupades per entrades de la generació actual,
+     * estimat sobre les primeres cubetes.
+     * @return Valor entre 0 i 1000 (per mil).
+     */
+    public int hashfull() {
+        int sample = Math.min(1000, keys.length), used = 0;
+        for (int i = 0; i < sample; i++) {
+            if ((data[i] & VALID) != 0 && generation(data[i]) == generation) used++;
+        }
+        return used * 1000 / sample;
+    }
+
+    private static long pack(int score, int depth, int flag, int move, int gen) {
+        int d = Math.max(0, Math.min(255, depth));
+        return (score & 0xFFFFFFFFL)
+             | ((long) ((move + 1) & 0xFFFF) << 32)
+             | ((long) d << 48)
+             | ((long) (flag & 0x3) << 56)
+             | ((long) gen << 58)
+             | VALID;
+    }
+
+    /** @return Cert si la paraula de dades correspon a una entrada trobada. */
+    public static boolean isValid(long data) { return (data & VALID) != 0; }
+
+    /** @return Puntuació guardada. */
+    public static int score(long data) { return (int) data; }
+
+    /** @return Millor moviment guardat o {@link #NO_MOVE}. */
+    public static int move(long data) { return (int) ((data >>> 32) & 0xFFFF) - 1; }
+
+    /** @return Profunditat de la cerca guardada. */
+    public static int depth(long data) { return (int) ((data >>> 48) & 0xFF); }
+
+    /** @return Tipus de cota guardat. */
+    public static int flag(long data) { return (int) ((data >>> 56) & 0x3); }
+
+    private static int generation(long data) { return (int) ((data >>> 58) & GENERATION_MASK); }
+}
@@ -0,0 +1,306 @@
+package edu.upc.epsevg.prop.oust.players.OrtizSerralta;
+
+import edu.upc.epsevg.prop.oust.MyStatus;
+import java.util.Arrays;
+
+/**
+ * Generador de torns complets (macro-jugades).
+ * <p>
+ * Un torn d'Oust és una cadena de captures del mateix jugador que acaba amb una
+ * col·locació que no captura o amb el final de la partida. Ordres de captura diferents
+ * porten sovint a la mateixa posició: aquí es recorren només les cadenes de captures
+ * des de l'estat actual, i cada posició intermèdia es guarda en un conjunt de claus
+ * Zobrist perquè una posició repetida dins del torn no es torni a expandir. Cada
+ * posició intermèdia diferent es combina amb les seves col·locacions sense captura, que
+ * no cal jugar per generar-les.
+ * </p>
+ * <p>
+ * Dues combinacions diferents encara poden acabar en la mateixa posició;
+ * {@link #playUnique(MyStatus, int)} ho detecta en jugar el torn, amb el mateix
+ * conjunt de claus (la clau de torn les distingeix de les posicions intermèdies).
+ * </p>
+ * <p>
+ * Per acotar el cost en posicions amb moltes captures, a partir d'un nombre de captures
+ * dins del torn les cadenes deixen de ramificar: només es tanca el torn amb les
+ * col·locacions sense captura (o amb una captura que guanya la partida) i, si no n'hi
+ * ha cap, es continua per la primera captura. A més, la generació té un pressupost de
+ * captures jugades: si s'esgota, {@link #generate(MyStatus, int, int)} ho indica i la
+ * cerca pot tornar a les col·locacions soltes en aquell node.
+ * </p>
+ * <p>
+ * Cada instància guarda els torns d'un sol node (la cerca en té una per ply) i els
+ * vectors es reutilitzen entre crides: només creixen. Els torns es poden recórrer en
+ * ordre de puntuació amb {@link #setScore(int, int)} i {@link #next(int)}.
+ * </p>
+ * @author OrtizSerralta
+ */
+public final class TurnGenerator {
+
+    /** Torns que es trien per puntuació; la resta es recorren en l'ordre de generació. */
+    public static final int SELECT_LIMIT = 8;
+
+    // Torns generats: col·locacions aplanades i inici de cada torn
+    private int[] cells = new int[256];
+    private int[] start = new int[65];
+    private int[] score = new int[64];
+    private int[] order = new int[64];
+    private boolean[] quiet = new boolean[64];   // Acaba amb una col·locació sense captura
+    private int count;
+    private int duplicates;
+
+    // Conjunt de claus del torn: adreçament obert amb marques de generació
+    private long[] setKeys = new long[256];
+    private int[] setStamp = new int[256];
+    private int setSize;
+    private int stamp;
+
+    // Recorregut de les cadenes
+    private int[][] bufs = new int[16][];
+    private int[] path = new int[16];
+    private MyStatus status;
+    private int maxBranch;
+    private int work;                            // Captures jugades que encara es poden fer
+
+    /**
+     * Genera els torns complets del jugador que té el torn a {@code s}. Si l'estat és a
+     * mig torn (després d'una captura), es generen les maneres d'acabar-lo.
+     * @param s Estat (es fa i desfà sobre ell; queda igual en acabar).
+     * @return Nombre de torns generats.
+     */
+    public int generate(MyStatus s) {
+        return generate(s, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Genera els torns complets ramificant les cadenes fins a un nombre de captures.
+     * @param s Estat (es fa i desfà sobre ell; queda igual en acabar).
+     * @param maxChain Captures del torn a partir de les quals ja no es ramifica.
+     * @return Nombre de torns generats.
+     */
+    public int generate(MyStatus s, int maxChain) {
+        return generate(s, maxChain, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Genera els torns complets amb un límit de feina.
+     * @param s Estat (es fa i desfà sobre ell; queda igual en acabar).
+     * @param maxChain Captures del torn a partir de les quals ja no es ramifica.
+     * @param budget Captures que es poden jugar com a màxim per generar els torns.
+     * @return Nombre de torns generats, o -1 si s'ha esgotat el pressupost.
+     */
+    public int generate(MyStatus s, int maxChain, int budget) {
+        maxBranch = maxChain;
+        work = budget;
+        count = 0;
+        duplicates = 0;
+        start[0] = 0;
+        if (s.isGameOver()) return 0;
+        nextStamp();
+        status = s;
+        addKey(s.getHash());
+        expand(0);
+        status = null;
+        if (work < 0) {
+            count = 0;
+            start[0] = 0;
+            return -1;
+        }
+        return count;
+    }
+
+    private void expand(int level) {
+        if (level == bufs.length) {
+            bufs = Arrays.copyOf(bufs, level * 2);
+            path = Arrays.copyOf(path, level * 2);
+        }
+        if (bufs[level] == null || bufs[level].length < status.getCellCount()) {
+            bufs[level] = new int[status.getCellCount()];
+        }
+        int[] buf = bufs[level];
+        int n = status.generateMoves(buf);
+        // Captura que deixa el jugador sense jugades: el torn acaba aquí
+        if (n == 0 && level > 0) addTurn(level, false);
+        boolean closed = false;
+        for (int i = 0; i < n; i++) {
+            path[level] = buf[i];
+            if (!status.isCapture(buf[i])) {
+                addTurn(level + 1, true);
+                closed = true;
+            }
+        }
+        boolean followed = false;
+        for (int i = 0; i < n && work >= 0; i++) {
+            if (!status.isCapture(buf[i])) continue;
+            if (--work < 0) return;
+            path[level] = buf[i];
+            status.makeMove(buf[i]);
+            if (!addKey(status.getHash())) {
+                duplicates++;
+            } else if (status.isGameOver()) {
+                addTurn(level + 1, false);
+            } else if (level < maxBranch || (!closed && !followed)) {
+                // Passat el límit, la cadena només continua si no hi ha cap manera de tancar el torn
+                expand(level + 1);
+                followed = true;
+            }
+            status.unmakeMove();
+        }
+    }
+
+    private void addTurn(int len, boolean endsQuiet) {
+        if (count + 1 == start.length) {
+            int cap = count * 2 + 1;
+            start = Arrays.copyOf(start, cap + 1);
+            score = Arrays.copyOf(score, cap);
+            order = Arrays.copyOf(order, cap);
+            quiet = Arrays.copyOf(quiet, cap);
+        }
+        int from = start[count];
+        if (from + len > cells.length) cells = Arrays.copyOf(cells, Math.max(cells.length * 2, from + len));
+        System.arraycopy(path, 0, cells, from, len);
+        score[count] = 0;
+        order[count] = count;
+        quiet[count] = endsQuiet;
+        start[++count] = from + len;
+    }
+
+    /**
+     * Afegeix una clau al conjunt del torn.
+     * @return Cert si la clau no hi era.
+     */
+    private boolean addKey(long key) {
+        if (2 * (setSize + 1) > setKeys.length) growSet();
+        int mask = setKeys.length - 1;
+        int i = (int) (key ^ (key >>> 32)) & mask;
+        while (setStamp[i] == stamp) {
+            if (setKeys[i] == key) return false;
+            i = (i + 1) & mask;
+        }
+        setStamp[i] = stamp;
+        setKeys[i] = key;
+        setSize++;
+        return true;
+    }
+
+    private void growSet() {
+        long[] oldKeys = setKeys;
+        int[] oldStamp = setStamp;
+        setKeys = new long[oldKeys.length * 2];
+        setStamp = new int[oldKeys.length * 2];
+        int mask = setKeys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldStamp[j] != stamp) continue;
+            int i = (int) (oldKeys[j] ^ (oldKeys[j] >>> 32)) & mask;
+            while (setStamp[i] == stamp) i = (i + 1) & mask;
+            setStamp[i] = stamp;
+            setKeys[i] = oldKeys[j];
+        }
+    }
+
+    private void nextStamp() {
+        setSize = 0;
+        if (++stamp == Integer.MAX_VALUE) {
+            Arrays.fill(setStamp, 0);
+            stamp = 1;
+        }
+    }
+
+    /** @return Nombre de torns de la darrera generació. */
+    public int size() { return count; }
+
+    /** @return Posicions descartades al node (en generar o en jugar) perquè ja s'hi havia arribat. */
+    public int getDuplicates() { return duplicates; }
+
+    /**
+     * @param t Índex del torn.
+     * @return Nombre de col·locacions del torn.
+     */
+    public int length(int t) { return start[t + 1] - start[t]; }
+
+    /**
+     * @param t Índex del torn.
+     * @return Captures del torn (totes les col·locacions menys la que el tanca, si n'hi ha).
+     */
+    public int captures(int t) { return quiet[t] ? length(t) - 1 : length(t); }
+
+    /**
+     * @param t Índex del torn.
+     * @param k Posició dins del torn.
+     * @return Casella (índex de bit) de la col·locació {@code k}.
+     */
+    public int cell(int t, int k) { return cells[start[t] + k]; }
+
+    /**
+     * @param t Índex del torn.
+     * @return Primera col·locació del torn (la que es guarda a la TT).
+     */
+    public int first(int t) { return cells[start[t]]; }
+
+    /**
+     * Fixa la puntuació d'ordenació d'un torn (més alta, abans).
+     * @param t Índex del torn.
+     * @param value Puntuació.
+     */
+    public void setScore(int t, int value) { score[t] = value; }
+
+    /**
+     * Selecció del torn {@code k}-èsim en ordre de puntuació: es busca el millor d'entre
+     * els que queden, sense ordenar tota la llista. Només els {@link #SELECT_LIMIT}
+     * primers es trien així: si no hi ha hagut poda fins aquí, el node probablement
+     * s'haurà de recórrer sencer i l'ordre de la resta importa poc.
+     * @param k Posició en l'ordre de recorregut (s'han de demanar 0, 1, 2... en ordre).
+     * @return Índex del torn.
+     */
+    public int next(int k) {
+        if (k >= SELECT_LIMIT) return order[k];
+        int pick = k;
+        for (int j = k + 1; j < count; j++) {
+            if (score[order[j]] > score[order[pick]]) pick = j;
+        }
+        int t = order[pick];
+        order[pick] = order[k];
+        order[k] = t;
+        return t;
+    }
+
+    /**
+     * Juga totes les col·locacions d'un torn.
+     * @param s Estat on s'ha generat el torn.
+     * @param t Índex del torn.
+     */
+    public void play(MyStatus s, int t) {
+        for (int i = start[t]; i < start[t + 1]; i++) s.makeMove(cells[i]);
+    }
+
+    /**
+     * Juga un torn si la posició final encara no s'ha cercat en aquest node.
+     * @param s Estat on s'ha generat el torn.
+     * @param t Índex del torn.
+     * @return Cert si s'ha jugat; fals (i l'estat queda igual) si la posició és repetida.
+     */
+    public boolean playUnique(MyStatus s, int t) {
+        play(s, t);
+        // Els torns acabats en captura són posicions intermèdies, ja úniques en generar-les
+        if (!quiet[t] || addKey(s.getHash())) return true;
+        undo(s, t);
+        duplicates++;
+        return false;
+    }
+
+    /**
+     * Desfà un torn jugat amb {@link #play(MyStatus, int)}.
+     * @param s Estat.
+     * @param t Índex del torn.
+     */
+    public void undo(MyStatus s, int t) {
+        for (int i = start[t]; i < start[t + 1]; i++) s.unmakeMove();
+    }
+
+    /**
+     * @param t Índex del torn.
+     * @return Col·locacions del torn (índexs de bit), en un vector nou.
+     */
+    public int[] sequence(int t) {
+        return Arrays.copyOfRange(cells, start[t], start[t + 1]);
+    }
+}
@@ -0,0 +1,143 @@
+package edu.upc.epsevg.prop.oust.players.OrtizSerralta;
+
+import edu.upc.epsevg.prop.oust.MyStatus;
+import edu.upc.epsevg.prop.oust.PlayerType;
+import java.util.Arrays;
+
+/**
+ * Avaluació lineal per grups i mobilitat amb un vector de pesos fixat en construir-la.
+ * <p>
+ * La puntuació és la suma ponderada de sis termes, en l'ordre dels índexs {@code W_*}:
+ * suma dels quadrats de les mides dels grups propis, fitxes pròpies, el mateix per al
+ * rival, jugades legals del jugador que té el torn i diferència de jugades legals
+ * (pròpies menys rivals). Els grups es compten com a l'heurística original, dins de la
+ * finestra de {@link EvalKernel}.
+ * </p>
+ * <p>
+ * Sobre {@link MyStatus} tots els termes són O(1): els grups i els conjunts de jugades
+ * es mantenen incrementalment. Amb els pesos de mobilitat a zero tampoc no cal posar
+ * al dia els conjunts de jugades, que és el que més costa d'una fulla; per això
+ * {@link #GROUPS} és l'alternativa barata a {@link #STANDARD}. Sobre
+ * {@link GameStatusTunned} els grups i, només si té pes, la mobilitat dels dos colors
+ * es recorren amb {@link EvalKernel}, sense reservar memòria ni generar jugades amb la
+ * llibreria.
+ * </p>
+ * @author OrtizSerralta
+ */
+public final class WeightedEvaluator implements Evaluator {
+
+    /** Pes de la suma dels quadrats de les mides dels grups propis. */
+    public static final int W_OWN_SQUARES = 0;
+    /** Pes de les fitxes pròpies. */
+    public static final int W_OWN_STONES = 1;
+    /** Pes de la suma dels quadrats de les mides dels grups rivals. */
+    public static final int W_OPP_SQUARES = 2;
+    /** Pes de les fitxes rivals. */
+    public static final int W_OPP_STONES = 3;
+    /** Pes de les jugades legals del jugador que té el torn. */
+    public static final int W_MOBILITY = 4;
+    /** Pes de la diferència de jugades legals (pròpies menys rivals). */
+    public static final int W_MOBILITY_DIFF = 5;
+    /** Nombre de pesos del vector. */
+    public static final int WEIGHTS = 6;
+
+    /**
+     * Heurística del jugador: grups al quadrat, penalització doble als grups rivals,
+     * material i bonus de mobilitat.
+     */
+    public static final WeightedEvaluator STANDARD = new WeightedEvaluator(10, 50, -20, -50, 10, 0);
+    /** {@link #STANDARD} sense mobilitat: no consulta els conjunts de jugades. */
+    public static final WeightedEvaluator GROUPS = new WeightedEvaluator(10, 50, -20, -50, 0, 0);
+    /** {@link #STANDARD} amb la mobilitat dels dos colors en lloc de la del que mou. */
+    public static final WeightedEvaluator MOBILITY = new WeightedEvaluator(10, 50, -20, -50, 0, 10);
+
+    private final int ownSq, ownStones, oppSq, oppStones, mobility, mobilityDiff;
+    private final long signature;
+
+    /**
+     * @param weights Vector de {@link #WEIGHTS} pesos, en l'ordre dels índexs {@code W_*}.
+     */
+    public WeightedEvaluator(int... weights) {
+        if (weights.length != WEIGHTS) {
+            throw new IllegalArgumentException("Expected " + WEIGHTS + " weights, got " + weights.length);
+        }
+        ownSq = weights[W_OWN_SQUARES];
+        ownStones = weights[W_OWN_STONES];
+        oppSq = weights[W_OPP_SQUARES];
+        oppStones = weights[W_OPP_STONES];
+        mobility = weights[W_MOBILITY];
+        mobilityDiff = weights[W_MOBILITY_DIFF];
+        long h = 0xC2B2AE3D27D4EB4FL;
+        for (int w : weights) {
+            h = (h ^ w) * 0x9E3779B97F4A7C15L;
+            h ^= h >>> 29;
+        }
+        signature = h;
+    }
+
+    /**
+     * Avaluador a partir d'un nom o d'una llista de pesos, per triar-lo des de la
+     * línia d'ordres o des dels benchmarks.
+     * @param spec {@code standard}, {@code groups}, {@code mobility} o {@link #WEIGHTS}
+     *             enters separats per comes.
+     * @return Avaluador corresponent.
+     */
+    public static WeightedEvaluator parse(String spec) {
+        switch (spec) {
+            case "standard": return STANDARD;
+            case "groups": return GROUPS;
+            case "mobility": return MOBILITY;
+            default:
+                String[] parts = spec.split(",");
+                int[] weights = new int[parts.length];
+                for (int i = 0; i < parts.length; i++) weights[i] = Integer.parseInt(parts[i].trim());
+                return new WeightedEvaluator(weights);
+        }
+    }
+
+    /**
+     * @return Còpia del vector de pesos.
+     */
+    public int[] getWeights() {
+        return new int[] {ownSq, ownStones, oppSq, oppStones, mobility, mobilityDiff};
+    }
+
+    /**
+     * @return Cert si algun terme depèn de les jugades legals.
+     */
+    public boolean usesMobility() {
+        return mobility != 0 || mobilityDiff != 0;
+    }
+
+    @Override
+    public int evaluate(MyStatus s, PlayerType me) {
+        PlayerType opp = me.opposite();
+        int v = ownSq * s.getGroupSquareSum(me) + ownStones * s.getGroupStoneCount(me)
+              + oppSq * s.getGroupSquareSum(opp) + oppStones * s.getGroupStoneCount(opp);
+        if (mobility != 0) v += mobility * s.countMoves();
+        if (mobilityDiff != 0) v += mobilityDiff * (s.countMoves(me) - s.countMoves(opp));
+        return v;
+    }
+
+    @Override
+    public int evaluate(GameStatusTunned s, PlayerType me) {
+        int[] g = s.groupTotals(me);
+        int v = ownSq * g[0] + ownStones * g[1] + oppSq * g[2] + oppStones * g[3];
+        if (usesMobility()) {
+            int[] m = s.moveCounts(me);
+            if (mobility != 0) v += mobility * (s.getCurrentPlayer() == me ? m[0] : m[1]);
+            v += mobilityDiff * (m[0] - m[1]);
+        }
+        return v;
+    }
+
+    @Override
+    public long signature() {
+        return signature;
+    }
+
+    @Override
+    public String toString() {
+        return "WeightedEvaluator" + Arrays.toString(getWeights());
+    }
+}
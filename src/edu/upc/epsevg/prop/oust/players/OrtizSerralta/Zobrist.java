@@ -0,0 +1,102 @@
+package edu.upc.epsevg.prop.oust.players.OrtizSerralta;
+
+import edu.upc.epsevg.prop.oust.GameStatus;
+import edu.upc.epsevg.prop.oust.PlayerType;
+import java.util.Random;
+
+/**
+ * Taules de claus Zobrist per identificar de manera única (amb alta probabilitat)
+ * un estat del tauler d'Oust.
+ * <p>
+ * Hi ha una clau aleatòria per cada casella i color, més una clau per indicar
+ * que el torn és del jugador 2. La clau d'un estat és la XOR de les claus de
+ * totes les fitxes presents, de manera que col·locar o capturar una fitxa
+ * s'actualitza amb una sola operació XOR.
+ * </p>
+ * <p>
+ * Les caselles s'indexen com {@code x * squareSize + y}, igual que el tauler intern
+ * de {@link GameStatus}. Les taules són immutables i es comparteixen per mida.
+ * </p>
+ * @author OrtizSerralta
+ */
+public final class Zobrist {
+
+    private static final int MAX_SQUARE_SIZE = 29; // Mida màxima permesa (n = 15)
+    private static final Zobrist[] cache = new Zobrist[MAX_SQUARE_SIZE + 1];
+
+    private final int squareSize;
+    private final long[][] stoneKeys; // [color 0/1][casella]
+    private final long sideKey;
+
+    private Zobrist(int squareSize) {
+        this.squareSize = squareSize;
+        // Llavor fixa: les claus han de ser reproduïbles entre execucions
+        Random rnd = new Random(0x0B5E55EDL ^ squareSize);
+        int cells = squareSize * squareSize;
+        stoneKeys = new long[2][cells];
+        for (int c = 0; c < 2; c++) {
+            for (int i = 0; i < cells; i++) stoneKeys[c][i] = rnd.nextLong();
+        }
+        sideKey = rnd.nextLong();
+    }
+
+    /**
+     * Retorna les taules Zobrist per a un tauler de la mida indicada.
+     * @param squareSize Mida del costat de la matriu interna ({@link GameStatus#getSquareSize()}).
+     * @return Taules compartides per a aquesta mida.
+     */
+    public static Zobrist forSize(int squareSize) {
+        Zobrist z = cache[squareSize];
+        if (z == null) {
+            synchronized (cache) {
+                z = cache[squareSize];
+                if (z == null) {
+                    z = new Zobrist(squareSize);
+                    cache[squareSize] = z;
+                }
+            }
+        }
+        return z;
+    }
+
+    /**
+     * @param cell Índex de casella ({@code x * squareSize + y}).
+     * @param p Color de la fitxa.
+     * @return Clau de la fitxa {@code p} a la casella {@code cell}.
+     */
+    public long stone(int cell, PlayerType p) {
+        return stoneKeys[p == PlayerType.PLAYER1 ? 0 : 1][cell];
+    }
+
+    /**
+     * @return Clau que s'afegeix quan el torn és del jugador 2.
+     */
+    public long side() {
+        return sideKey;
+    }
+
+    /**
+     * @return Mida del costat de la matriu per a la qual s'han generat les claus.
+     */
+    public int getSquareSize() {
+        return squareSize;
+    }
+
+    /**
+     * Calcula la clau d'un estat des de zero recorrent tot el tauler.
+     * Només s'ha d'utilitzar per inicialitzar; la resta d'actualitzacions són incrementals.
+     * @param s Estat del joc.
+     * @return Clau Zobrist de l'estat.
+     */
+    public long compute(GameStatus s) {
+        long key = 0;
+        for (int x = 0; x < squareSize; x++) {
+            for (int y = 0; y < squareSize; y++) {
+                PlayerType p = s.getColor(x, y);
+                if (p != null) key ^= stone(x * squareSize + y, p);
+            }
+        }
+        if (s.getCurrentPlayer() == PlayerType.PLAYER2) key ^= sideKey;
+        return key;
+    }
+}